@@ -0,0 +1,203 @@
+/**********************************************************************
+ * @file BlockedBloomFilter.java
+ * @brief This program implements the BlockedBloomFilter class. It
+ * answers "might this hash have been added?" with no false negatives
+ * and a small, chosen rate of false positives, so a hash table can
+ * turn away most lookups of absent items without touching its buckets.
+ * The bits are split into blocks of one 64-bit word. A hash picks one
+ * word and builds a mask of all its bits, so a query is a single load
+ * and compare with no branch per bit. That keeps the check short
+ * enough not to stall the lookups around it, where a cache-line block
+ * with a loop over its bits cost more than the buckets it skipped. The
+ * price is that small blocks fill unevenly, so the filter needs more
+ * bits per item than a plain Bloom filter for the same rate; the
+ * sizing finds how many from the spread of items over blocks.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Arrays;
+
+// BlockedBloomFilter class
+//
+// CONSTRUCTION: the expected number of items and the target
+// false-positive rate
+//
+// ******************PUBLIC OPERATIONS*********************
+// void add( hash )                       --> Record a hash
+// boolean mightContain( hash )           --> False only if hash was never added
+// void makeEmpty( )                      --> Forget every hash
+// int getExpectedItems( )                --> The item count it was sized for
+// double getTargetFalsePositiveRate( )   --> The rate it was sized for
+// double estimatedFalsePositiveRate( )   --> The rate implied by the bits set
+// long getBitCount( )                    --> Size of the filter in bits
+// int getHashCount( )                    --> Bits set per hash
+
+public class BlockedBloomFilter {
+    /**
+     * Construct the filter.
+     *
+     * @param expectedItems     the number of hashes it will hold.
+     * @param falsePositiveRate the fraction of absent hashes that may be
+     *                          reported present, in (0, 1).
+     */
+    public BlockedBloomFilter(int expectedItems, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0) || falsePositiveRate >= 1)
+            throw new IllegalArgumentException("False-positive rate must be in (0, 1): " + falsePositiveRate);
+        this.expectedItems = Math.max(1, expectedItems);
+        this.falsePositiveRate = falsePositiveRate;
+        //Pick the hash count that reaches the rate with the fewest bits.
+        double bestBitsPerItem = Double.MAX_VALUE;
+        int bestHashCount = 1;
+        for (int k = 1; k <= MAX_HASHES; k++) {
+            double bitsPerItem = bitsPerItem(k, falsePositiveRate);
+            if (bitsPerItem < bestBitsPerItem) {
+                bestBitsPerItem = bitsPerItem;
+                bestHashCount = k;
+            }
+        }
+        hashCount = bestHashCount;
+        long bits = (long) Math.ceil(this.expectedItems * bestBitsPerItem);
+        words = new long[(int) Math.min(MAX_WORDS, Math.max(1, (bits + 63) / 64))];
+    }
+
+    /**
+     * Record a hash.
+     *
+     * @param hash the hash, such as a HashStrategy hash of an item.
+     */
+    public void add(int hash) {
+        long h = mix(hash);
+        words[word(h)] |= mask(h);
+    }
+
+    /**
+     * Test a hash.
+     *
+     * @param hash the hash.
+     * @return false if the hash was certainly never added; true if it
+     *         probably was.
+     */
+    public boolean mightContain(int hash) {
+        long h = mix(hash);
+        long mask = mask(h);
+        return (words[word(h)] & mask) == mask;
+    }
+
+    /**
+     * Forget every hash.
+     */
+    public void makeEmpty() {
+        Arrays.fill(words, 0);
+    }
+
+    public int getExpectedItems() {
+        return expectedItems;
+    }
+
+    public double getTargetFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Estimate the false-positive rate from the bits set: an absent hash
+     * passes when all of its bits happen to be set in the word it picks,
+     * so the rate is the mean over words of the word's fill to the power
+     * of the hash count.
+     *
+     * @return the estimated rate.
+     */
+    public double estimatedFalsePositiveRate() {
+        double sum = 0;
+        for (long w : words)
+            sum += Math.pow(Long.bitCount(w) / 64.0, hashCount);
+        return sum / words.length;
+    }
+
+    public long getBitCount() {
+        return (long) words.length * 64;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /*
+    This method picks the word of a mixed hash from its high bits,
+    multiplying instead of dividing to map them onto [0, words.length).
+     */
+    private int word(long h) {
+        return (int) (((h >>> 32) * words.length) >>> 32);
+    }
+
+    /*
+    This method builds the mask of hashCount bits from 6-bit slices of the
+    hash mixed once more. A shift of a long only uses the low 6 bits of its
+    count, so no slice needs masking.
+     */
+    private long mask(long h) {
+        long bits = mix(h);
+        long mask = 0;
+        for (int i = 0; i < hashCount; i++, bits >>>= 6)
+            mask |= 1L << bits;
+        return mask;
+    }
+
+    /*
+    These methods find the fewest bits per item that keep the expected
+    false-positive rate of a filter setting k bits per hash within rate.
+    The number of items in a word is Poisson distributed, and a word
+    holding j items has each bit set with probability 1 - (63/64)^(k j).
+     * The rate falls as bits are added, so the answer is bracketed by
+     * doubling and then bisected to within 1%.
+     */
+    private static double bitsPerItem(int k, double rate) {
+        double low = 1, high = 2;
+        while (blockedRate(high, k) > rate) {
+            low = high;
+            high *= 2;
+        }
+        while (high > low * 1.01) {
+            double middle = Math.sqrt(low * high);
+            if (blockedRate(middle, k) > rate)
+                low = middle;
+            else
+                high = middle;
+        }
+        return high;
+    }
+
+    private static double blockedRate(double bitsPerItem, int k) {
+        double lambda = 64 / bitsPerItem;
+        double poisson = Math.exp(-lambda);
+        double rate = 0;
+        for (int j = 0; j < 4 * lambda + 64; j++) {
+            rate += poisson * Math.pow(1 - Math.pow(63.0 / 64, (double) k * j), k);
+            poisson *= lambda / (j + 1);
+        }
+        return rate;
+    }
+
+    /*
+    This method spreads every input bit over the 64-bit result, with the
+    finalizer HashStrategy's mixing strategies use, so hashCode() values
+    that differ in only a few bits land in unrelated words.
+     */
+    private static long mix(long h) {
+        return HashStrategy.Mixed.fmix64(h);
+    }
+
+    /**
+     * The most bits one hash sets: ten 6-bit slices fit in a long.
+     */
+    private static final int MAX_HASHES = 10;
+    private static final int MAX_WORDS = Integer.MAX_VALUE - 8;
+
+    /**
+     * The bit array, one block per word.
+     */
+    private final long[] words;
+    private final int hashCount;
+    private final int expectedItems;
+    private final double falsePositiveRate;
+}
@@ -0,0 +1,106 @@
+/**********************************************************************
+ * @file BloomFilterBenchmark.java
+ * @brief This program measures the Bloom filter front of
+ * SeparateChainingHashTable on a workload where most lookups are for
+ * volcanoes that are not in the table. It fills two tables of each
+ * bucket type with the same synthetic volcanoes, one with the filter
+ * enabled, then times contains() over a trace that mixes stored and
+ * absent volcanoes. It reports insert and lookup time per operation,
+ * the lookup speedup, and the filter's false-positive rate, measured
+ * on the absent volcanoes, next to its target and its estimate.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class BloomFilterBenchmark {
+    // Usage: java BloomFilterBenchmark <input file> [records] [lookups] [miss fraction] [false-positive rate]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java BloomFilterBenchmark <input file> [records] [lookups] [miss fraction]"
+                    + " [false-positive rate]");
+            System.exit(1);
+        }
+        int records = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 2000000;
+        double missFraction = args.length > 3 ? Double.parseDouble(args[3]) : 0.9;
+        double falsePositiveRate = args.length > 4 ? Double.parseDouble(args[4]) : 0.01;
+
+        //The first half is stored, the second half never is.
+        VolcanoGenerator generator = new VolcanoGenerator(MappedCsvLoader.load(args[0], Integer.MAX_VALUE),
+                VolcanoGenerator.DEFAULT_SKEW, 0, VolcanoGenerator.DEFAULT_SEED);
+        ArrayList<Volcano> all = generator.generate(2 * records);
+        //Volcano caches its hash code; compute them all now so neither table pays for it.
+        for (Volcano v : all)
+            sink += v.hashCode();
+        List<Volcano> stored = all.subList(0, records);
+        List<Volcano> absent = all.subList(records, 2 * records);
+        SplittableRandom random = new SplittableRandom(VolcanoGenerator.DEFAULT_SEED);
+        Volcano[] trace = new Volcano[lookups];
+        for (int k = 0; k < lookups; k++)
+            trace[k] = random.nextDouble() < missFraction
+                    ? absent.get(random.nextInt(records)) : stored.get(random.nextInt(records));
+        System.out.println("Records=" + records + ", Lookups=" + lookups + ", Miss Fraction=" + missFraction
+                + ", Target False-Positive Rate=" + falsePositiveRate);
+
+        for (SeparateChainingHashTable.BucketType bucketType : SeparateChainingHashTable.BucketType.values()) {
+            SeparateChainingHashTable<Volcano> plain = new SeparateChainingHashTable<>(101, false, bucketType);
+            SeparateChainingHashTable<Volcano> filtered = new SeparateChainingHashTable<>(101, false, bucketType);
+            BlockedBloomFilter filter = filtered.enableBloomFilter(records, falsePositiveRate);
+            long plainInsert = insertNanos(plain, stored);
+            long filteredInsert = insertNanos(filtered, stored);
+            //The table may have grown and replaced the filter.
+            filter = filtered.getBloomFilter();
+
+            //Warm up both, then keep the best of the measured rounds.
+            long plainLookup = Long.MAX_VALUE, filteredLookup = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                plainLookup = Math.min(plainLookup, lookupNanos(plain, trace));
+                filteredLookup = Math.min(filteredLookup, lookupNanos(filtered, trace));
+            }
+
+            //The false-positive rate of the filter, over every absent volcano.
+            HashStrategy strategy = filtered.getStrategy();
+            int passed = 0;
+            for (Volcano v : absent)
+                if (filter.mightContain(strategy.hash(v)))
+                    passed++;
+
+            System.out.println(bucketType + " buckets: Insert(ns/op) " + plainInsert / records + " -> "
+                    + filteredInsert / records + ", Lookup(ns/op) " + String.format("%.1f", (double) plainLookup / lookups)
+                    + " -> " + String.format("%.1f", (double) filteredLookup / lookups)
+                    + ", Speedup=" + String.format("%.2f", (double) plainLookup / filteredLookup) + "x");
+            System.out.println(bucketType + " filter: Measured False-Positive Rate="
+                    + String.format("%.5f", (double) passed / records)
+                    + ", Estimated=" + String.format("%.5f", filter.estimatedFalsePositiveRate())
+                    + ", Bits/item=" + String.format("%.2f", (double) filter.getBitCount() / records)
+                    + ", Hashes=" + filter.getHashCount());
+        }
+    }
+
+    private static long insertNanos(SeparateChainingHashTable<Volcano> table, List<Volcano> items) {
+        long start = System.nanoTime();
+        for (Volcano v : items)
+            table.insert(v);
+        return System.nanoTime() - start;
+    }
+
+    private static long lookupNanos(SeparateChainingHashTable<Volcano> table, Volcano[] trace) {
+        long start = System.nanoTime();
+        for (Volcano v : trace)
+            if (table.contains(v))
+                sink++;
+        return System.nanoTime() - start;
+    }
+
+    private static final int ROUNDS = 6;
+
+    /**
+     * Results are added here so the JIT cannot drop the lookups.
+     */
+    private static volatile long sink;
+}
@@ -0,0 +1,360 @@
+/**********************************************************************
+ * @file BoundedCache.java
+ * @brief This program implements the BoundedCache class. It keeps at
+ * most a fixed number of values from a slower backing store, such as a
+ * DiskHashIndex or a CSV file, and loads a missing value through a
+ * loader function. Entries are found through a SeparateChainingHashMap
+ * and are linked into doubly-linked queues by their own prev and next
+ * fields, so moving or dropping one costs O(1) and nothing else is
+ * allocated. Two eviction policies are built in: plain LRU, and
+ * W-TinyLFU, which keeps a small LRU window for new entries in front
+ * of a segmented LRU main area and lets a window entry into the main
+ * area only if a CountMinSketch has seen it more often than the entry
+ * it would push out. Hits, misses and evictions are counted.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.function.Function;
+
+// BoundedCache class
+//
+// CONSTRUCTION: the maximum number of entries, the eviction policy and
+// the loader that reads a missing value, or null to fill only by put
+//
+// ******************PUBLIC OPERATIONS*********************
+// V get( k )                 --> The value for k, loading it on a miss
+// V getIfPresent( k )        --> The cached value for k, or null
+// void put( k, v )           --> Cache v for k
+// void invalidate( k )       --> Drop k
+// void invalidateAll( )      --> Drop every entry
+// int size( )                --> Return the number of entries
+// long getHitCount( ) ...    --> Hits, misses and evictions
+// double getHitRatio( )      --> Hits per lookup
+// void resetStats( )         --> Zero the counters
+// String toString( )         --> The counters on one line
+//
+// Null keys are not allowed, and a loader that returns null caches
+// nothing. The cache is not thread-safe.
+
+public class BoundedCache<K, V> {
+    /**
+     * The eviction policies.
+     */
+    public enum Policy {
+        /**
+         * Evict the least recently used entry.
+         */
+        LRU,
+        /**
+         * Admit new entries through a 1% LRU window and a frequency
+         * filter into a segmented LRU of probation and protected
+         * entries.
+         */
+        W_TINY_LFU
+    }
+
+    /**
+     * Construct the cache.
+     *
+     * @param maximumSize the most entries the cache holds (must be
+     *                    positive).
+     * @param policy      how the entry to evict is chosen.
+     * @param loader      reads the value of a key that is not cached, or
+     *                    null if values only come from put.
+     */
+    public BoundedCache(int maximumSize, Policy policy, Function<? super K, ? extends V> loader) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        this.maximumSize = maximumSize;
+        this.policy = policy;
+        this.loader = loader;
+        map = new SeparateChainingHashMap<>(maximumSize);
+        if (policy == Policy.LRU) {
+            //Plain LRU is a window that spans the whole cache.
+            windowMax = maximumSize;
+            protectedMax = 0;
+            sketch = null;
+        } else {
+            windowMax = Math.max(1, maximumSize / 100);
+            protectedMax = (maximumSize - windowMax) * 4 / 5;
+            sketch = new CountMinSketch(maximumSize);
+        }
+    }
+
+    /**
+     * Return the value of a key, loading and caching it on a miss.
+     *
+     * @param key the key.
+     * @return the value, or null if the loader has none.
+     */
+    public V get(K key) {
+        Node<K, V> node = map.get(key);
+        if (sketch != null)
+            sketch.increment(key);
+        if (node != null) {
+            hits++;
+            onAccess(node);
+            return node.value;
+        }
+        misses++;
+        if (loader == null)
+            return null;
+        V value = loader.apply(key);
+        if (value != null)
+            add(key, value);
+        return value;
+    }
+
+    /**
+     * Return the cached value of a key without loading it. A hit counts
+     * as a use of the entry.
+     *
+     * @param key the key.
+     * @return the value, or null if the key is not cached.
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = map.get(key);
+        if (sketch != null)
+            sketch.increment(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * Cache a value, replacing any cached value of the same key.
+     *
+     * @param key   the key.
+     * @param value the value (must not be null).
+     */
+    public void put(K key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Null value for " + key);
+        Node<K, V> node = map.get(key);
+        if (node != null) {
+            node.value = value;
+            onAccess(node);
+        } else {
+            add(key, value);
+        }
+    }
+
+    /**
+     * Drop a key from the cache. This is not counted as an eviction.
+     *
+     * @param key the key.
+     */
+    public void invalidate(K key) {
+        Node<K, V> node = map.remove(key);
+        if (node != null)
+            unlinkCounted(node);
+    }
+
+    /**
+     * Drop every entry. The statistics and the frequency counts are kept.
+     */
+    public void invalidateAll() {
+        map.makeEmpty();
+        window.prev = window.next = window;
+        probation.prev = probation.next = probation;
+        protectedQueue.prev = protectedQueue.next = protectedQueue;
+        windowSize = protectedSize = 0;
+    }
+
+    /**
+     * Return the number of cached entries.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    public long getHitCount() {
+        return hits;
+    }
+
+    public long getMissCount() {
+        return misses;
+    }
+
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Return the fraction of lookups that were hits.
+     *
+     * @return hits / (hits + misses), or 0 before any lookup.
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public void resetStats() {
+        hits = misses = evictions = 0;
+    }
+
+    /**
+     * Return the policy, size and counters on one line.
+     *
+     * @return the statistics.
+     */
+    public String toString() {
+        return "Policy=" + policy + ", Size=" + size() + "/" + maximumSize + ", Hits=" + hits
+                + ", Misses=" + misses + ", Evictions=" + evictions
+                + ", Hit Ratio=" + String.format("%.4f", getHitRatio());
+    }
+
+    /*
+    This method caches a new entry at the most recent end of the window, then
+    evicts until the cache is back within its maximum size.
+     */
+    private void add(K key, V value) {
+        Node<K, V> node = new Node<>(key, value);
+        map.put(key, node);
+        node.queue = WINDOW;
+        linkLast(window, node);
+        windowSize++;
+        if (policy == Policy.LRU) {
+            if (windowSize > maximumSize)
+                evict(window.next);
+        } else {
+            admit();
+        }
+    }
+
+    /*
+    This method moves an entry that was used to the most recent end of its
+    queue. A probation entry is promoted to protected, and the oldest
+    protected entry drops back to probation if that overflows.
+     */
+    private void onAccess(Node<K, V> node) {
+        unlink(node);
+        if (node.queue == PROBATION) {
+            node.queue = PROTECTED;
+            linkLast(protectedQueue, node);
+            if (++protectedSize > protectedMax) {
+                Node<K, V> demoted = protectedQueue.next;
+                unlink(demoted);
+                demoted.queue = PROBATION;
+                linkLast(probation, demoted);
+                protectedSize--;
+            }
+        } else {
+            linkLast(node.queue == WINDOW ? window : protectedQueue, node);
+        }
+    }
+
+    /*
+    This method runs the W-TinyLFU admission. Entries leaving the window join
+    probation as candidates. While the cache is too big, the newest candidate
+    and the oldest probation entry are compared by sketch frequency, and
+    the candidate is kept only if it has been seen more often.
+     */
+    private void admit() {
+        while (windowSize > windowMax) {
+            Node<K, V> candidate = window.next;
+            unlink(candidate);
+            windowSize--;
+            candidate.queue = PROBATION;
+            linkLast(probation, candidate);
+            if (map.size() <= maximumSize)
+                continue;
+            Node<K, V> victim = probation.next;
+            //With probation holding only the candidate, the protected entries compete.
+            if (victim == candidate)
+                victim = protectedQueue.next != protectedQueue ? protectedQueue.next : candidate;
+            if (victim != candidate && sketch.frequency(candidate.key) <= sketch.frequency(victim.key))
+                victim = candidate;
+            evict(victim);
+        }
+    }
+
+    /*
+    This method drops an entry to make room, counting the eviction.
+     */
+    private void evict(Node<K, V> node) {
+        map.remove(node.key);
+        unlinkCounted(node);
+        evictions++;
+    }
+
+    /*
+    This method unlinks an entry that is leaving the cache and updates the
+    size of its queue.
+     */
+    private void unlinkCounted(Node<K, V> node) {
+        unlink(node);
+        if (node.queue == WINDOW)
+            windowSize--;
+        else if (node.queue == PROTECTED)
+            protectedSize--;
+    }
+
+    /*
+    These methods link a node at the most recent end of a queue, just before
+    its sentinel, and unlink it from whichever queue holds it.
+     */
+    private static <K, V> void linkLast(Node<K, V> sentinel, Node<K, V> node) {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static <K, V> void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node.next = null;
+    }
+
+    /**
+     * A cache entry, linked into one of the queues through its own fields.
+     * Each queue is circular around a sentinel node, whose next is the
+     * least recently used entry and whose prev the most recent.
+     */
+    private static final class Node<K, V> {
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        Node() {
+            this(null, null);
+            prev = next = this;
+        }
+
+        final K key;
+        V value;
+        Node<K, V> prev, next;
+        byte queue;
+    }
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final int maximumSize;
+    private final Policy policy;
+    private final Function<? super K, ? extends V> loader;
+    private final SeparateChainingHashMap<K, Node<K, V>> map;
+    private final CountMinSketch sketch;
+    private final int windowMax;
+    private final int protectedMax;
+    /**
+     * The sentinels of the three queues. LRU uses only the window.
+     */
+    private final Node<K, V> window = new Node<>();
+    private final Node<K, V> probation = new Node<>();
+    private final Node<K, V> protectedQueue = new Node<>();
+    private int windowSize;
+    private int protectedSize;
+    private long hits, misses, evictions;
+}
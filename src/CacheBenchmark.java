@@ -0,0 +1,96 @@
+/**********************************************************************
+ * @file CacheBenchmark.java
+ * @brief This program compares the eviction policies of BoundedCache.
+ * It writes a synthetic volcano dataset into a DiskHashIndex, which
+ * plays the slower backing store, then replays a trace of lookups of
+ * volcano numbers drawn from a Zipf distribution through caches of
+ * several sizes. For each policy and size it reports the hit ratio,
+ * the evictions and the lookups per second, next to the rate of the
+ * same trace read straight from the index.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.function.Function;
+
+public class CacheBenchmark {
+    // Usage: java CacheBenchmark <input file> <index base name> [records] [lookups] [skew]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java CacheBenchmark <input file> <index base name> [records] [lookups] [skew]");
+            System.exit(1);
+        }
+        int records = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+        int lookups = args.length > 3 ? Integer.parseInt(args[3]) : 2000000;
+        double skew = args.length > 4 ? Double.parseDouble(args[4]) : VolcanoGenerator.DEFAULT_SKEW;
+
+        //Fill the backing store with distinct synthetic volcanoes.
+        VolcanoGenerator generator = new VolcanoGenerator(MappedCsvLoader.load(args[0], Integer.MAX_VALUE),
+                skew, 0, VolcanoGenerator.DEFAULT_SEED);
+        ArrayList<Volcano> volcanoes = generator.generate(records);
+        Files.deleteIfExists(Paths.get(args[1] + ".log"));
+        Files.deleteIfExists(Paths.get(args[1] + ".idx"));
+        try (DiskHashIndex index = DiskHashIndex.open(args[1])) {
+            for (Volcano v : volcanoes)
+                index.insert(v);
+            index.force();
+
+            //The trace: rank k of the Zipf distribution is the k-th volcano.
+            ZipfDistribution popularity = new ZipfDistribution(records, skew, VolcanoGenerator.DEFAULT_SEED);
+            String[] trace = new String[lookups];
+            for (int k = 0; k < lookups; k++)
+                trace[k] = volcanoes.get(popularity.sample()).getNumber();
+            volcanoes = null;
+            System.out.println("Records=" + records + ", Lookups=" + lookups + ", Skew=" + skew);
+
+            Function<String, Volcano> loader = number -> {
+                try {
+                    return index.get(number);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            //Warm up, then time the trace without a cache.
+            replay(trace, loader);
+            long start = System.nanoTime();
+            replay(trace, loader);
+            System.out.println("No cache: Ops/sec=" + rate(lookups, System.nanoTime() - start));
+
+            for (int size : new int[]{records / 1000, records / 100, records / 10}) {
+                for (BoundedCache.Policy policy : BoundedCache.Policy.values()) {
+                    //A warmup round on its own cache, then a measured round on a cold one.
+                    BoundedCache<String, Volcano> cache = new BoundedCache<>(Math.max(1, size), policy, loader);
+                    replay(trace, cache::get);
+                    cache = new BoundedCache<>(Math.max(1, size), policy, loader);
+                    start = System.nanoTime();
+                    replay(trace, cache::get);
+                    long time = System.nanoTime() - start;
+                    System.out.println(cache + ", Ops/sec=" + rate(lookups, time));
+                }
+            }
+        }
+    }
+
+    /*
+    This method looks up every number of the trace.
+     */
+    private static void replay(String[] trace, Function<String, Volcano> lookup) {
+        for (String number : trace)
+            if (lookup.apply(number) != null)
+                sink++;
+    }
+
+    private static long rate(long n, long nanos) {
+        return nanos == 0 ? 0 : n * 1000000000L / nanos;
+    }
+
+    /**
+     * Results are added here so the JIT cannot drop the lookups.
+     */
+    private static volatile long sink;
+}
@@ -0,0 +1,260 @@
+/**********************************************************************
+ * @file ConcurrentSeparateChainingHashTable.java
+ * @brief This program implements the ConcurrentSeparateChainingHashTable
+ * class. It is a separate chaining hash table that many threads can
+ * share. Writers lock one stripe of buckets, readers never lock, and a
+ * rehash builds the new table beside the old one so readers keep
+ * searching the old table until the new one is published.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// ConcurrentSeparateChaining Hash table class
+//
+// CONSTRUCTION: an approximate initial size or default of 101, and
+// optionally the number of lock stripes or default of 16
+//
+// ******************PUBLIC OPERATIONS*********************
+// void insert( x )       --> Insert x
+// void remove( x )       --> Remove x
+// boolean contains( x )  --> Return true if x is present
+// void makeEmpty( )      --> Remove all items
+// int size( )            --> Return the number of items
+
+public class ConcurrentSeparateChainingHashTable<AnyType> {
+    /**
+     * Construct the hash table.
+     */
+    public ConcurrentSeparateChainingHashTable() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Construct the hash table.
+     *
+     * @param size approximate table size.
+     */
+    public ConcurrentSeparateChainingHashTable(int size) {
+        this(size, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Construct the hash table.
+     *
+     * @param size    approximate table size.
+     * @param stripes the number of locks the buckets are shared between.
+     */
+    public ConcurrentSeparateChainingHashTable(int size, int stripes) {
+        theLists = new AtomicReferenceArray<>(SeparateChainingHashTable.nextPrime(Math.max(size, stripes)));
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++)
+            locks[i] = new ReentrantLock();
+        counts = new int[stripes * COUNT_STRIDE];
+    }
+
+    /**
+     * Insert into the hash table. If the item is
+     * already present, then do nothing. Rehash if
+     * the insertion exceeds the table size.
+     *
+     * @param x the item to insert.
+     */
+    public void insert(AnyType x) {
+        int hash = x.hashCode();
+        AtomicReferenceArray<Node<AnyType>> table;
+        boolean grow;
+        //Lock the stripe that owns the bucket, retrying if a rehash got there first.
+        while (true) {
+            table = theLists;
+            int i = myhash(hash, table.length());
+            int stripe = i % locks.length;
+            ReentrantLock lock = locks[stripe];
+            lock.lock();
+            try {
+                if (table != theLists)
+                    continue;
+                Node<AnyType> head = table.get(i);
+                for (Node<AnyType> n = head; n != null; n = n.next)
+                    if (n.hash == hash && x.equals(n.item))
+                        return;
+                //Publish the new node at the front of the chain.
+                table.set(i, new Node<>(x, hash, head));
+                int count = ++counts[stripe * COUNT_STRIDE];
+                //Each stripe owns 1/stripes of the buckets, so compare against its share.
+                grow = (long) count * locks.length > table.length();
+                break;
+            } finally {
+                lock.unlock();
+            }
+        }
+        //rehash if the insertion exceeds the stripe's share of the table.
+        if (grow)
+            rehash(table);
+    }
+
+    /**
+     * Remove from the hash table.
+     *
+     * @param x the item to remove.
+     */
+    public void remove(AnyType x) {
+        int hash = x.hashCode();
+        //Lock the stripe that owns the bucket, retrying if a rehash got there first.
+        while (true) {
+            AtomicReferenceArray<Node<AnyType>> table = theLists;
+            int i = myhash(hash, table.length());
+            int stripe = i % locks.length;
+            ReentrantLock lock = locks[stripe];
+            lock.lock();
+            try {
+                if (table != theLists)
+                    continue;
+                Node<AnyType> head = table.get(i);
+                Node<AnyType> target = head;
+                while (target != null && !(target.hash == hash && x.equals(target.item)))
+                    target = target.next;
+                if (target == null)
+                    return;
+                //Nodes are immutable, so copy the ones in front of the target.
+                //Readers already walking the old chain still see a complete list.
+                Node<AnyType> newHead = target.next;
+                for (Node<AnyType> n = head; n != target; n = n.next)
+                    newHead = new Node<>(n.item, n.hash, newHead);
+                table.set(i, newHead);
+                counts[stripe * COUNT_STRIDE]--;
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Find an item in the hash table. This method never locks.
+     *
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    public boolean contains(AnyType x) {
+        int hash = x.hashCode();
+        AtomicReferenceArray<Node<AnyType>> table = theLists;
+        for (Node<AnyType> n = table.get(myhash(hash, table.length())); n != null; n = n.next)
+            if (n.hash == hash && x.equals(n.item))
+                return true;
+        return false;
+    }
+
+    /**
+     * Make the hash table logically empty.
+     */
+    public void makeEmpty() {
+        lockAll();
+        try {
+            theLists = new AtomicReferenceArray<>(theLists.length());
+            Arrays.fill(counts, 0);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Return the number of items in the hash table. While other threads
+     * are writing, the result is only an estimate.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        int sum = 0;
+        for (int s = 0; s < locks.length; s++)
+            sum += counts[s * COUNT_STRIDE];
+        return sum;
+    }
+
+    /*
+    This method doubles the table size. It takes every stripe lock, so writers
+    wait, but readers keep using the old table: the nodes are copied into the
+    new table and the old chains are left untouched until the new table is
+    published.
+     */
+    private void rehash(AtomicReferenceArray<Node<AnyType>> expected) {
+        lockAll();
+        try {
+            //Another thread may have rehashed already.
+            if (theLists != expected)
+                return;
+            AtomicReferenceArray<Node<AnyType>> newLists =
+                    new AtomicReferenceArray<>(SeparateChainingHashTable.nextPrime(2 * expected.length()));
+            Arrays.fill(counts, 0);
+            for (int j = 0; j < expected.length(); j++) {
+                for (Node<AnyType> n = expected.get(j); n != null; n = n.next) {
+                    int i = myhash(n.hash, newLists.length());
+                    newLists.set(i, new Node<>(n.item, n.hash, newLists.get(i)));
+                    counts[(i % locks.length) * COUNT_STRIDE]++;
+                }
+            }
+            theLists = newLists;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /*
+    This method takes every stripe lock, always in the same order.
+     */
+    private void lockAll() {
+        for (ReentrantLock lock : locks)
+            lock.lock();
+    }
+
+    /*
+    This method releases every stripe lock.
+     */
+    private void unlockAll() {
+        for (ReentrantLock lock : locks)
+            lock.unlock();
+    }
+
+    private static int myhash(int hash, int tableSize) {
+        int hashVal = hash % tableSize;
+        if (hashVal < 0)
+            hashVal += tableSize;
+
+        return hashVal;
+    }
+
+    /*
+    A chain node. Its fields are final, so a reader that sees the node also
+    sees its item and the rest of the chain.
+     */
+    private static final class Node<AnyType> {
+        final AnyType item;
+        final int hash;
+        final Node<AnyType> next;
+
+        Node(AnyType item, int hash, Node<AnyType> next) {
+            this.item = item;
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    private static final int DEFAULT_TABLE_SIZE = 101;
+    private static final int DEFAULT_STRIPES = 16;
+
+    /**
+     * Stripe counts are spaced a cache line apart so that writers on
+     * different stripes do not share a line.
+     */
+    private static final int COUNT_STRIDE = 16;
+
+    /**
+     * The array of chains. Bucket i is guarded by locks[i % locks.length].
+     */
+    private volatile AtomicReferenceArray<Node<AnyType>> theLists;
+    private final ReentrantLock[] locks;
+    private final int[] counts;
+}
@@ -0,0 +1,126 @@
+/**********************************************************************
+ * @file CountMinSketch.java
+ * @brief This program implements the CountMinSketch class. It estimates
+ * how often each item has been seen, in a fixed amount of memory, for
+ * the admission filter of BoundedCache. Each item maps to one 4-bit
+ * counter in each of four rows; an increment raises the item's counters
+ * and the estimate is the smallest of them, which collisions can only
+ * push up. After ten sightings per counter in a row the sketch halves
+ * every counter, so old popularity fades and new favourites can win
+ * against it.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Arrays;
+
+// CountMinSketch class
+//
+// CONSTRUCTION: the number of distinct items to tell apart
+//
+// ******************PUBLIC OPERATIONS*********************
+// void increment( x )    --> Count one sighting of x
+// int frequency( x )     --> Estimated sightings of x, at most 15
+// void makeEmpty( )      --> Forget every count
+
+public class CountMinSketch {
+    /**
+     * Construct the sketch.
+     *
+     * @param expectedItems the number of distinct items, such as the
+     *                      size of a cache, the sketch should tell apart.
+     */
+    public CountMinSketch(int expectedItems) {
+        int width = 16;
+        while (width < expectedItems && width < MAX_WIDTH)
+            width <<= 1;
+        //Each row has width counters, and 16 counters fit in a long.
+        table = new long[width * DEPTH / COUNTERS_PER_LONG];
+        mask = width - 1;
+        sampleSize = 10L * width;
+    }
+
+    /**
+     * Count one sighting of an item. Counters stop at 15.
+     *
+     * @param x the item.
+     */
+    public void increment(Object x) {
+        int hash = x.hashCode();
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int counter = counterIndex(hash, row);
+            int shift = (counter & (COUNTERS_PER_LONG - 1)) * 4;
+            int i = counter >>> 4;
+            if (((table[i] >>> shift) & 0xF) < 15) {
+                table[i] += 1L << shift;
+                added = true;
+            }
+        }
+        //Age the counts once enough sightings have been added.
+        if (added && ++additions >= sampleSize)
+            halve();
+    }
+
+    /**
+     * Return the estimated number of sightings of an item since it was
+     * last aged.
+     *
+     * @param x the item.
+     * @return the smallest of its counters, from 0 to 15.
+     */
+    public int frequency(Object x) {
+        int hash = x.hashCode();
+        int min = 15;
+        for (int row = 0; row < DEPTH; row++) {
+            int counter = counterIndex(hash, row);
+            int count = (int) ((table[counter >>> 4] >>> ((counter & (COUNTERS_PER_LONG - 1)) * 4)) & 0xF);
+            min = Math.min(min, count);
+        }
+        return min;
+    }
+
+    /**
+     * Forget every count.
+     */
+    public void makeEmpty() {
+        Arrays.fill(table, 0);
+        additions = 0;
+    }
+
+    /*
+    This method halves every counter at once: each 4-bit counter is shifted
+    right and the bit that crossed in from its neighbour is masked off.
+     */
+    private void halve() {
+        for (int i = 0; i < table.length; i++)
+            table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+        additions /= 2;
+    }
+
+    /*
+    This method returns the position of the item's counter in a row, counting
+    counters from the start of the table. Each row mixes the hash with its
+    own odd multiplier, so items that collide in one row rarely collide in
+    the others.
+     */
+    private int counterIndex(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return row * (mask + 1) + ((int) h & mask);
+    }
+
+    private static final int DEPTH = 4;
+    private static final int COUNTERS_PER_LONG = 16;
+    private static final int MAX_WIDTH = 1 << 26;
+    private static final long[] SEEDS = {
+            0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+
+    /**
+     * The counters of all rows, row after row, 16 to a long.
+     */
+    private final long[] table;
+    private final int mask;
+    private final long sampleSize;
+    private long additions;
+}
@@ -0,0 +1,396 @@
+/**********************************************************************
+ * @file CuckooHashTable.java
+ * @brief This program implements the CuckooHashTable class. It
+ * implements a bucketized cuckoo hash table: the slots are grouped in
+ * buckets of four, and every item lives in one of the two buckets its
+ * two hash functions pick, so a lookup reads at most eight slots. When
+ * both buckets of a new item are full, a random item is kicked out of
+ * one of them to its own other bucket, and so on for a bounded number
+ * of kicks. An item still left over goes into a small stash that every
+ * lookup also checks; only when the stash is full does the table grow.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Arrays;
+
+// CuckooHashTable class
+//
+// CONSTRUCTION: an approximate initial size or default of 101, and
+// optionally the maximum load factor, below 1
+//
+// ******************PUBLIC OPERATIONS*********************
+// void insert( x )       --> Insert x
+// void remove( x )       --> Remove x
+// boolean contains( x )  --> Return true if x is present
+// void makeEmpty( )      --> Remove all items and release the buckets
+// int size( )            --> Return the number of items
+// String shapeSummary( ) --> Load factor, buckets read and kicks on one line
+
+public class CuckooHashTable<AnyType> implements HashTable<AnyType> {
+    /**
+     * Construct the hash table.
+     */
+    public CuckooHashTable() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Construct the hash table.
+     *
+     * @param size approximate number of items the table should hold
+     *             before it has to grow.
+     */
+    public CuckooHashTable(int size) {
+        this(size, DEFAULT_MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Construct the hash table.
+     *
+     * @param size          approximate number of items the table should
+     *                      hold before it has to grow.
+     * @param maxLoadFactor the table grows when items per slot would go
+     *                      above this. Buckets of four fill to about
+     *                      0.95 before kicks start to fail.
+     */
+    public CuckooHashTable(int size, double maxLoadFactor) {
+        if (!(maxLoadFactor > 0) || maxLoadFactor >= 1)
+            throw new IllegalArgumentException("Maximum load factor must be in (0, 1): " + maxLoadFactor);
+        this.maxLoadFactor = maxLoadFactor;
+        initialBuckets = bucketsFor(Math.max(1, size));
+        allocate(initialBuckets);
+    }
+
+    /**
+     * Insert into the hash table. If the item is
+     * already present, then do nothing. Grow the table if
+     * the insertion exceeds the maximum load factor.
+     *
+     * @param x the item to insert.
+     */
+    public void insert(AnyType x) {
+        int hash = spread(x.hashCode());
+        if (findSlot(x, hash) >= 0 || findInStash(x, hash) >= 0)
+            return;
+        //Grow if the insertion exceeds the maximum load factor.
+        if (++currentSize > maxFill)
+            rehash(buckets() * 2);
+        add(x, hash);
+    }
+
+    /**
+     * Remove from the hash table.
+     *
+     * @param x the item to remove.
+     */
+    public void remove(AnyType x) {
+        int hash = spread(x.hashCode());
+        int slot = findSlot(x, hash);
+        if (slot >= 0) {
+            items[slot] = null;
+            currentSize--;
+            //The freed slot may take an item back out of the stash.
+            if (stashSize > 0)
+                unstash(slot / SLOTS);
+            return;
+        }
+        int s = findInStash(x, hash);
+        if (s >= 0) {
+            //Fill the hole with the last stash entry.
+            stashSize--;
+            stash[s] = stash[stashSize];
+            stashHashes[s] = stashHashes[stashSize];
+            stash[stashSize] = null;
+            currentSize--;
+        }
+    }
+
+    /**
+     * Find an item in the hash table.
+     *
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    public boolean contains(AnyType x) {
+        int hash = spread(x.hashCode());
+        return findSlot(x, hash) >= 0 || (stashSize > 0 && findInStash(x, hash) >= 0);
+    }
+
+    /**
+     * Make the hash table logically empty.
+     */
+    public void makeEmpty() {
+        //Drop the buckets by going back to a table of the initial size.
+        allocate(initialBuckets);
+        currentSize = 0;
+        kicks = 0;
+    }
+
+    /**
+     * Return the number of items in the hash table.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return currentSize;
+    }
+
+    /**
+     * Return the current shape of the table on one line: its load factor,
+     * the mean number of buckets a successful lookup reads (1 for an item
+     * in its first bucket, 2 in its second, 3 in the stash), how the items
+     * split between the three, and the kicks made since the table was
+     * last emptied.
+     *
+     * @return the table shape.
+     */
+    public String shapeSummary() {
+        long first = 0, second = 0;
+        for (int slot = 0; slot < items.length; slot++) {
+            if (items[slot] == null)
+                continue;
+            if (slot / SLOTS == firstBucket(hashes[slot]))
+                first++;
+            else
+                second++;
+        }
+        long probes = first + 2 * second + 3L * stashSize;
+        return "Load Factor=" + String.format("%.3f", (double) currentSize / items.length)
+                + ", Avg Probe=" + String.format("%.2f", currentSize == 0 ? 0 : (double) probes / currentSize)
+                + ", First Bucket=" + first + ", Second Bucket=" + second + ", Stash=" + stashSize
+                + ", Kicks=" + kicks;
+    }
+
+    /*
+    This method returns the slot holding x in one of its buckets, or -1.
+     */
+    private int findSlot(Object x, int hash) {
+        int start = firstBucket(hash) * SLOTS;
+        for (int slot = start; slot < start + SLOTS; slot++) {
+            if (hashes[slot] == hash && x.equals(items[slot]))
+                return slot;
+        }
+        start = secondBucket(hash) * SLOTS;
+        for (int slot = start; slot < start + SLOTS; slot++) {
+            if (hashes[slot] == hash && x.equals(items[slot]))
+                return slot;
+        }
+        return -1;
+    }
+
+    /*
+    This method returns the stash index holding x, or -1.
+     */
+    private int findInStash(Object x, int hash) {
+        for (int s = 0; s < stashSize; s++) {
+            if (stashHashes[s] == hash && x.equals(stash[s]))
+                return s;
+        }
+        return -1;
+    }
+
+    /*
+    This method stores an absent item. It takes a free slot in either bucket
+    if there is one; otherwise it kicks a random item out of the bucket it
+    holds and carries that item to its other bucket, up to MAX_KICKS times.
+    The item left over after that goes into the stash, or the table grows
+    and the item is added again.
+     */
+    private void add(Object x, int hash) {
+        int bucket = firstBucket(hash);
+        int slot = freeSlot(bucket);
+        if (slot < 0) {
+            bucket = secondBucket(hash);
+            slot = freeSlot(bucket);
+        }
+        for (int kick = 0; slot < 0 && kick < MAX_KICKS; kick++) {
+            //Swap x with a random item of the bucket and move that item on.
+            slot = bucket * SLOTS + (nextRandom() & (SLOTS - 1));
+            Object displaced = items[slot];
+            int displacedHash = hashes[slot];
+            items[slot] = x;
+            hashes[slot] = hash;
+            x = displaced;
+            hash = displacedHash;
+            kicks++;
+            bucket = otherBucket(bucket, hash);
+            slot = freeSlot(bucket);
+        }
+        if (slot >= 0) {
+            items[slot] = x;
+            hashes[slot] = hash;
+            return;
+        }
+        //A full stash with the table under half loaded means hash codes
+        //collide outright, which no amount of growing can fix.
+        if (stashSize < STASH_SIZE || currentSize < maxFill / 2) {
+            if (stashSize == stash.length) {
+                stash = Arrays.copyOf(stash, stashSize * 2);
+                stashHashes = Arrays.copyOf(stashHashes, stashSize * 2);
+            }
+            stash[stashSize] = x;
+            stashHashes[stashSize] = hash;
+            stashSize++;
+            return;
+        }
+        rehash(buckets() * 2);
+        add(x, hash);
+    }
+
+    /*
+    This method moves one stash item that can live in the given bucket into
+    its free slot.
+     */
+    private void unstash(int bucket) {
+        for (int s = 0; s < stashSize; s++) {
+            int hash = stashHashes[s];
+            if (firstBucket(hash) == bucket || secondBucket(hash) == bucket) {
+                int slot = freeSlot(bucket);
+                items[slot] = stash[s];
+                hashes[slot] = hash;
+                stashSize--;
+                stash[s] = stash[stashSize];
+                stashHashes[s] = stashHashes[stashSize];
+                stash[stashSize] = null;
+                return;
+            }
+        }
+    }
+
+    /*
+    This method moves every item, the stash included, into a new table of the
+    given number of buckets. The items are already known to be distinct, so
+    they are added without equality checks.
+     */
+    private void rehash(int newBuckets) {
+        Object[] oldItems = items;
+        int[] oldHashes = hashes;
+        Object[] oldStash = stash;
+        int[] oldStashHashes = stashHashes;
+        int oldStashSize = stashSize;
+        allocate(newBuckets);
+        for (int slot = 0; slot < oldItems.length; slot++) {
+            if (oldItems[slot] != null)
+                add(oldItems[slot], oldHashes[slot]);
+        }
+        for (int s = 0; s < oldStashSize; s++)
+            add(oldStash[s], oldStashHashes[s]);
+    }
+
+    /*
+    This method creates empty arrays for the given power-of-two number of
+    buckets and an empty stash.
+     */
+    private void allocate(int buckets) {
+        items = new Object[buckets * SLOTS];
+        hashes = new int[buckets * SLOTS];
+        mask = buckets - 1;
+        maxFill = (int) (items.length * maxLoadFactor);
+        stash = new Object[STASH_SIZE];
+        stashHashes = new int[STASH_SIZE];
+        stashSize = 0;
+    }
+
+    /*
+    This method returns the first free slot of a bucket, or -1 if it is full.
+     */
+    private int freeSlot(int bucket) {
+        int start = bucket * SLOTS;
+        for (int slot = start; slot < start + SLOTS; slot++) {
+            if (items[slot] == null)
+                return slot;
+        }
+        return -1;
+    }
+
+    private int buckets() {
+        return mask + 1;
+    }
+
+    /*
+    These methods return the two buckets of a spread hash. The second comes
+    from mixing the hash again, so items that share a first bucket scatter
+    over the second ones; the two never coincide.
+     */
+    private int firstBucket(int hash) {
+        return hash & mask;
+    }
+
+    private int secondBucket(int hash) {
+        int bucket = spread(hash + 0x9E3779B9) & mask;
+        return bucket != (hash & mask) ? bucket : bucket ^ 1;
+    }
+
+    private int otherBucket(int bucket, int hash) {
+        return bucket == firstBucket(hash) ? secondBucket(hash) : firstBucket(hash);
+    }
+
+    /*
+    This method returns the next xorshift random number, which picks the
+    items to kick.
+     */
+    private int nextRandom() {
+        int r = random;
+        r ^= r << 13;
+        r ^= r >>> 17;
+        r ^= r << 5;
+        random = r;
+        return r;
+    }
+
+    /*
+    This method mixes every bit of a hash code into the low bits the mask
+    keeps (the Murmur3 finalizer).
+     */
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Internal method to find the smallest power-of-two number of buckets,
+     * at least two, that can hold n items without exceeding the maximum
+     * load factor.
+     *
+     * @param n the number of items.
+     * @return a power of two.
+     */
+    private int bucketsFor(int n) {
+        int buckets = 2;
+        while (buckets * SLOTS * maxLoadFactor < n && buckets < MAX_BUCKETS)
+            buckets <<= 1;
+        return buckets;
+    }
+
+    private static final int DEFAULT_TABLE_SIZE = 101;
+    private static final double DEFAULT_MAX_LOAD_FACTOR = 0.9;
+    private static final int SLOTS = 4;
+    private static final int MAX_KICKS = 500;
+    private static final int STASH_SIZE = 4;
+    private static final int MAX_BUCKETS = 1 << 28;
+
+    /**
+     * The buckets, SLOTS consecutive entries each, and the spread hashes of
+     * their items. A null item marks a free slot.
+     */
+    private Object[] items;
+    private int[] hashes;
+    private int mask;
+    private int maxFill;
+    private int currentSize;
+    /**
+     * Items no bucket had room for. Every lookup that misses the buckets
+     * checks them.
+     */
+    private Object[] stash;
+    private int[] stashHashes;
+    private int stashSize;
+    private long kicks;
+    private int random = 0x2545F491;
+    private final int initialBuckets;
+    private final double maxLoadFactor;
+}
@@ -0,0 +1,780 @@
+/**********************************************************************
+ * @file DiskHashIndex.java
+ * @brief This program implements the DiskHashIndex class. It keeps
+ * Volcano records on disk, keyed by volcano number, so an index can
+ * outgrow the heap and survive a restart. Records are appended to a
+ * log file, each with its length and CRC32. A memory-mapped index file
+ * holds fixed-size bucket pages of (hash, log offset) slots, with
+ * overflow pages chained behind full buckets. Buckets are chosen the
+ * way SeparateChainingHashTable chooses them, with the key's hash code
+ * modulo a prime, and the bucket count doubles to the next prime when
+ * the pages fill. The OS page cache keeps the hot pages and records in
+ * memory.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// DiskHashIndex class
+//
+// CONSTRUCTION: through open( baseName ), which uses baseName.log and
+// baseName.idx
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( v )     --> Store v under its number, replacing any record
+// boolean contains( key ) --> Return true if a record has number key
+// Volcano get( key )      --> The record with number key, or null
+// boolean remove( key )   --> Remove the record with number key
+// int size( )             --> Return the number of records
+// void force( )           --> Write everything through to the disk
+// void compact( )         --> Rewrite the log with only the live records
+// void close( )           --> Force and mark the index clean
+//
+// ******************FILE LAYOUT (big-endian)**************
+// Log: records of (int payload length, int CRC32 of payload, payload).
+// A payload is a byte kind (1 put, 2 delete), the key, and for a put the
+// other ten fields. Strings are an int byte length (-1 for null) and
+// UTF-8 bytes.
+// Index: a 4 KB header page (int magic, int version, int buckets,
+// int pages, int size, int clean, long log end), then 4 KB pages of
+// (int count, int next page or -1, count x (int hash, long log offset)).
+// Page b is the first page of bucket b.
+//
+// The log is the record of truth. The index is marked clean only by
+// close(); an index that is not clean, or that does not match the log,
+// is rebuilt by replaying the log, and a torn record at the end of the
+// log is cut off. The index is not thread-safe.
+
+public class DiskHashIndex implements Closeable {
+    /**
+     * Open the index stored in baseName.log and baseName.idx, creating
+     * both if the log does not exist.
+     *
+     * @param baseName the path of the files without their extensions.
+     * @return the open index.
+     * @throws IOException if the files cannot be read or written.
+     */
+    public static DiskHashIndex open(String baseName) throws IOException {
+        return new DiskHashIndex(Paths.get(baseName + ".log"), Paths.get(baseName + ".idx"));
+    }
+
+    private DiskHashIndex(Path logPath, Path indexPath) throws IOException {
+        this.logPath = logPath;
+        this.indexPath = indexPath;
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        flushedEnd = log.size();
+        PageFile existing = Files.exists(indexPath) ? PageFile.open(indexPath) : null;
+        if (existing != null && existing.isClean() && existing.logEnd() == flushedEnd) {
+            pages = existing;
+        } else {
+            if (existing != null)
+                existing.close();
+            pages = PageFile.create(indexPath, STRATEGY.tableSize(DEFAULT_BUCKETS));
+            replay();
+        }
+        size = pages.size();
+        //Until close(), a crash leaves an index that open() will not trust.
+        pages.setClean(false);
+        pages.force();
+    }
+
+    /**
+     * Store a record under its volcano number. A record already stored
+     * under that number is replaced.
+     *
+     * @param v the record; its number must not be null.
+     * @return true if the number was new.
+     * @throws IOException if the log cannot be written.
+     */
+    public boolean insert(Volcano v) throws IOException {
+        if (v.getNumber() == null)
+            throw new IllegalArgumentException("A record needs a number to be stored: " + v);
+        byte[] key = v.getNumber().getBytes(StandardCharsets.UTF_8);
+        int hash = STRATEGY.hash(v.getNumber());
+        long offset = append(encodePut(v));
+        int slot = find(hash, key);
+        if (slot >= 0) {
+            pages.setOffset(slot, offset);
+            return false;
+        }
+        addSlot(hash, offset);
+        return true;
+    }
+
+    /**
+     * Find a record by volcano number.
+     *
+     * @param key the volcano number.
+     * @return true if a record has that number.
+     * @throws IOException if the log cannot be read.
+     */
+    public boolean contains(String key) throws IOException {
+        return find(STRATEGY.hash(key), key.getBytes(StandardCharsets.UTF_8)) >= 0;
+    }
+
+    /**
+     * Return the record with a volcano number.
+     *
+     * @param key the volcano number.
+     * @return the record, or null if no record has that number.
+     * @throws IOException if the log cannot be read.
+     */
+    public Volcano get(String key) throws IOException {
+        int slot = find(STRATEGY.hash(key), key.getBytes(StandardCharsets.UTF_8));
+        return slot < 0 ? null : decode(found);
+    }
+
+    /**
+     * Remove the record with a volcano number.
+     *
+     * @param key the volcano number.
+     * @return true if a record was removed.
+     * @throws IOException if the log cannot be read or written.
+     */
+    public boolean remove(String key) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int slot = find(STRATEGY.hash(key), keyBytes);
+        if (slot < 0)
+            return false;
+        append(encodeDelete(keyBytes));
+        pages.removeSlot(slot);
+        size--;
+        return true;
+    }
+
+    /**
+     * Return the number of records.
+     *
+     * @return the number of records.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the bytes in the log, including replaced and removed records
+     * that compact() would drop.
+     *
+     * @return the log length.
+     */
+    public long logBytes() {
+        return flushedEnd + pending.position();
+    }
+
+    /**
+     * Return the bytes in the index file.
+     *
+     * @return the index length.
+     */
+    public long indexBytes() {
+        return pages.bytes();
+    }
+
+    /**
+     * Write the buffered log records and the index pages through to the
+     * disk. Records stored before a force() survive a crash.
+     *
+     * @throws IOException if the files cannot be written.
+     */
+    public void force() throws IOException {
+        flush();
+        log.force(false);
+        pages.setSize(size);
+        pages.setLogEnd(flushedEnd);
+        pages.force();
+    }
+
+    /**
+     * Rewrite the log with only the current record of each number, and
+     * point the index at the new offsets. The new log is written beside
+     * the old one and renamed over it, so a crash leaves one complete log.
+     *
+     * @throws IOException if the files cannot be read or written.
+     */
+    public void compact() throws IOException {
+        flush();
+        Path tmp = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            long end = 0;
+            for (int page = 0; page < pages.pageCount(); page++) {
+                for (int s = 0, count = pages.count(page); s < count; s++) {
+                    int slot = pages.slot(page, s);
+                    ByteBuffer payload = payload(pages.offset(slot));
+                    int length = payload.remaining();
+                    if (buffer.remaining() < RECORD_HEADER + length) {
+                        writeFully(out, buffer, -1);
+                        if (buffer.capacity() < RECORD_HEADER + length)
+                            buffer = ByteBuffer.allocate(RECORD_HEADER + length);
+                    }
+                    buffer.putInt(length).putInt(crc(payload)).put(payload);
+                    pages.setOffset(slot, end);
+                    end += RECORD_HEADER + length;
+                }
+            }
+            writeFully(out, buffer, -1);
+            out.force(true);
+        }
+        segments = new MappedByteBuffer[0];
+        log.close();
+        Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        flushedEnd = log.size();
+        force();
+    }
+
+    /**
+     * Force everything to disk, mark the index clean and close the files.
+     *
+     * @throws IOException if the files cannot be written.
+     */
+    public void close() throws IOException {
+        force();
+        pages.setClean(true);
+        pages.force();
+        pages.close();
+        log.close();
+    }
+
+    /*
+    This method returns the index slot of the record with the given key, or
+    -1, and leaves the record's payload in found. Only slots whose hash
+    matches have their key read from the log.
+     */
+    private int find(int hash, byte[] key) throws IOException {
+        for (int page = pages.bucketPage(STRATEGY.index(hash, pages.buckets())); page != NO_PAGE; page = pages.next(page)) {
+            for (int s = 0, count = pages.count(page); s < count; s++) {
+                int slot = pages.slot(page, s);
+                if (pages.hash(slot) == hash) {
+                    ByteBuffer payload = payload(pages.offset(slot));
+                    if (sameKey(payload, key)) {
+                        found = payload;
+                        return slot;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /*
+    This method adds a slot for a new key, growing the index first if every
+    bucket is as full as MAX_FILL allows on average.
+     */
+    private void addSlot(int hash, long offset) throws IOException {
+        if (size + 1 > (long) pages.buckets() * SLOTS_PER_PAGE * MAX_FILL)
+            grow();
+        pages.addSlot(STRATEGY.index(hash, pages.buckets()), hash, offset);
+        size++;
+    }
+
+    /*
+    This method moves every slot into a new index with about twice the
+    buckets. The slots keep their hashes, so no key is hashed or read again.
+    The new index is built beside the old one and renamed over it.
+     */
+    private void grow() throws IOException {
+        Path tmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        PageFile bigger = PageFile.create(tmp, STRATEGY.tableSize(2 * pages.buckets()));
+        for (int page = 0; page < pages.pageCount(); page++) {
+            for (int s = 0, count = pages.count(page); s < count; s++) {
+                int slot = pages.slot(page, s);
+                int hash = pages.hash(slot);
+                bigger.addSlot(STRATEGY.index(hash, bigger.buckets()), hash, pages.offset(slot));
+            }
+        }
+        pages.close();
+        Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pages = bigger;
+    }
+
+    /*
+    This method rebuilds the index from the log. A record that is cut off
+    or fails its checksum ends the log; it and anything after it are
+    removed, since they can only be the remains of an interrupted append.
+     */
+    private void replay() throws IOException {
+        size = 0;
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        while (pos + RECORD_HEADER <= flushedEnd) {
+            header.clear();
+            readFully(header, pos);
+            int length = header.getInt(0);
+            if (length <= 0 || pos + RECORD_HEADER + length > flushedEnd)
+                break;
+            ByteBuffer payload = payload(pos);
+            if (crc(payload) != header.getInt(4))
+                break;
+            byte kind = payload.get(payload.position());
+            byte[] key = readKey(payload);
+            int hash = STRATEGY.hash(new String(key, StandardCharsets.UTF_8));
+            int slot = find(hash, key);
+            if (kind == PUT) {
+                if (slot >= 0)
+                    pages.setOffset(slot, pos);
+                else
+                    addSlot(hash, pos);
+            } else if (slot >= 0) {
+                pages.removeSlot(slot);
+                size--;
+            }
+            pos += RECORD_HEADER + length;
+        }
+        if (pos < flushedEnd) {
+            segments = new MappedByteBuffer[0];
+            log.truncate(pos);
+            flushedEnd = pos;
+        }
+        pages.setSize(size);
+        pages.setLogEnd(flushedEnd);
+    }
+
+    /*
+    This method appends a record to the write buffer and returns its log
+    offset. The buffer is written out when it fills or the index is forced.
+     */
+    private long append(byte[] payload) throws IOException {
+        int length = RECORD_HEADER + payload.length;
+        if (pending.remaining() < length) {
+            flush();
+            if (pending.capacity() < length)
+                pending = ByteBuffer.allocate(length);
+        }
+        long offset = flushedEnd + pending.position();
+        crc.reset();
+        crc.update(payload);
+        pending.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        return offset;
+    }
+
+    /*
+    This method writes the buffered records to the end of the log.
+     */
+    private void flush() throws IOException {
+        int length = pending.position();
+        if (length == 0)
+            return;
+        writeFully(log, pending, flushedEnd);
+        flushedEnd += length;
+    }
+
+    /*
+    This method returns the payload of the record at offset. Written records
+    are read through read-only mappings of the log; records still in the
+    write buffer are read from it. The buffer returned is only valid until
+    the log is next written or read.
+     */
+    private ByteBuffer payload(long offset) throws IOException {
+        if (offset >= flushedEnd) {
+            int at = (int) (offset - flushedEnd);
+            int length = pending.getInt(at);
+            return pending.duplicate().limit(at + RECORD_HEADER + length).position(at + RECORD_HEADER);
+        }
+        int at = (int) (offset & (SEGMENT_SIZE - 1));
+        MappedByteBuffer segment = segment(offset, RECORD_HEADER);
+        if (segment != null) {
+            int length = segment.getInt(at);
+            segment = segment(offset, RECORD_HEADER + (long) length);
+            if (segment != null)
+                return segment.duplicate().limit(at + RECORD_HEADER + length).position(at + RECORD_HEADER);
+        }
+        //A record that crosses a segment boundary is read into the heap.
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        readFully(header, offset);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + header.getInt(0));
+        readFully(record, offset);
+        return record.position(RECORD_HEADER);
+    }
+
+    /*
+    This method returns the mapping of the log segment that holds the length
+    bytes at offset, mapping more of the segment if the log has grown into
+    it, or null if the bytes cross into the next segment.
+     */
+    private MappedByteBuffer segment(long offset, long length) throws IOException {
+        long segmentStart = offset & -SEGMENT_SIZE;
+        long end = offset - segmentStart + length;
+        if (end > SEGMENT_SIZE)
+            return null;
+        int k = (int) (offset / SEGMENT_SIZE);
+        if (k >= segments.length)
+            segments = Arrays.copyOf(segments, k + 1);
+        if (segments[k] == null || segments[k].capacity() < end)
+            segments[k] = log.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                    Math.min(SEGMENT_SIZE, flushedEnd - segmentStart));
+        return segments[k];
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = log.read(buffer, position);
+            if (n < 0)
+                throw new IOException("Unexpected end of log " + logPath + " at byte " + position);
+            position += n;
+        }
+    }
+
+    /*
+    This method writes out a filled buffer and clears it; a position of -1
+    appends at the channel's own position.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            if (position < 0) {
+                channel.write(buffer);
+            } else {
+                position += channel.write(buffer, position);
+            }
+        }
+        buffer.clear();
+    }
+
+    private int crc(ByteBuffer payload) {
+        crc.reset();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /*
+    These methods encode and decode the payloads. The key comes first so a
+    lookup can compare it without decoding the rest.
+     */
+    private byte[] encodePut(Volcano v) {
+        ByteBuffer out = encodeBuffer;
+        out.clear();
+        while (true) {
+            try {
+                out.put(PUT);
+                putString(out, v.getNumber());
+                putString(out, v.getRegion());
+                putString(out, v.getName());
+                putString(out, v.getCountry());
+                putString(out, v.getLocation());
+                putString(out, v.getType());
+                putString(out, v.getStatus());
+                putString(out, v.getLastKnownEruption());
+                Double latitude = v.getLatitude(), longitude = v.getLongitude();
+                Integer elevation = v.getElevation();
+                out.put((byte) ((latitude == null ? 1 : 0) | (longitude == null ? 2 : 0) | (elevation == null ? 4 : 0)));
+                out.putDouble(latitude == null ? 0 : latitude);
+                out.putDouble(longitude == null ? 0 : longitude);
+                out.putInt(elevation == null ? 0 : elevation);
+                return Arrays.copyOf(out.array(), out.position());
+            } catch (java.nio.BufferOverflowException e) {
+                //A record with very long fields; try again with more room.
+                encodeBuffer = out = ByteBuffer.allocate(out.capacity() * 2);
+            }
+        }
+    }
+
+    private static byte[] encodeDelete(byte[] key) {
+        ByteBuffer out = ByteBuffer.allocate(1 + 4 + key.length);
+        out.put(DELETE).putInt(key.length).put(key);
+        return out.array();
+    }
+
+    private static void putString(ByteBuffer out, String s) {
+        if (s == null) {
+            out.putInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length).put(bytes);
+    }
+
+    private static Volcano decode(ByteBuffer payload) {
+        ByteBuffer in = payload.duplicate();
+        in.get();
+        String number = getString(in), region = getString(in), name = getString(in), country = getString(in);
+        String location = getString(in), type = getString(in), status = getString(in);
+        String lastKnownEruption = getString(in);
+        byte nulls = in.get();
+        double latitude = in.getDouble(), longitude = in.getDouble();
+        int elevation = in.getInt();
+        return new Volcano(region, number, name, country, location,
+                (nulls & 1) != 0 ? null : latitude, (nulls & 2) != 0 ? null : longitude,
+                (nulls & 4) != 0 ? null : elevation, type, status, lastKnownEruption);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readKey(ByteBuffer payload) {
+        int at = payload.position() + 1;
+        byte[] key = new byte[payload.getInt(at)];
+        payload.get(at + 4, key);
+        return key;
+    }
+
+    private static boolean sameKey(ByteBuffer payload, byte[] key) {
+        int at = payload.position() + 1;
+        if (payload.getInt(at) != key.length)
+            return false;
+        at += 4;
+        for (int i = 0; i < key.length; i++)
+            if (payload.get(at + i) != key[i])
+                return false;
+        return true;
+    }
+
+    /*
+    The memory-mapped index file. It only knows pages and slots; the
+    records they point to are read by the index.
+     */
+    private static final class PageFile {
+        private final Path path;
+        private final FileChannel channel;
+        private MappedByteBuffer buf;
+
+        private PageFile(Path path, FileChannel channel, MappedByteBuffer buf) {
+            this.path = path;
+            this.channel = channel;
+            this.buf = buf;
+        }
+
+        /*
+        This method creates an empty index of the given number of buckets,
+        replacing any file at path.
+         */
+        static PageFile create(Path path, int buckets) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            long bytes = (long) (1 + buckets) * PAGE_SIZE;
+            if (bytes > Integer.MAX_VALUE)
+                throw new IOException("Index " + path + " would be larger than 2 GB");
+            PageFile f = new PageFile(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes));
+            f.buf.putInt(0, INDEX_MAGIC);
+            f.buf.putInt(4, INDEX_VERSION);
+            f.buf.putInt(8, buckets);
+            f.buf.putInt(12, buckets);
+            for (int page = 0; page < buckets; page++) {
+                f.buf.putInt(f.base(page), 0);
+                f.buf.putInt(f.base(page) + 4, NO_PAGE);
+            }
+            return f;
+        }
+
+        /*
+        This method maps an existing index, or returns null if the file is
+        not a complete index of this version.
+         */
+        static PageFile open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long bytes = channel.size();
+            if (bytes < PAGE_SIZE || bytes > Integer.MAX_VALUE) {
+                channel.close();
+                return null;
+            }
+            PageFile f = new PageFile(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes));
+            int pages = f.pageCount();
+            if (f.buf.getInt(0) != INDEX_MAGIC || f.buf.getInt(4) != INDEX_VERSION || f.buckets() < 1
+                    || pages < f.buckets() || (long) (1 + pages) * PAGE_SIZE > bytes) {
+                f.close();
+                return null;
+            }
+            return f;
+        }
+
+        int buckets() {
+            return buf.getInt(8);
+        }
+
+        int pageCount() {
+            return buf.getInt(12);
+        }
+
+        int size() {
+            return buf.getInt(16);
+        }
+
+        void setSize(int size) {
+            buf.putInt(16, size);
+        }
+
+        boolean isClean() {
+            return buf.getInt(20) == 1;
+        }
+
+        void setClean(boolean clean) {
+            buf.putInt(20, clean ? 1 : 0);
+        }
+
+        long logEnd() {
+            return buf.getLong(24);
+        }
+
+        void setLogEnd(long logEnd) {
+            buf.putLong(24, logEnd);
+        }
+
+        long bytes() {
+            return (long) (1 + pageCount()) * PAGE_SIZE;
+        }
+
+        int bucketPage(int bucket) {
+            return bucket;
+        }
+
+        int count(int page) {
+            return buf.getInt(base(page));
+        }
+
+        int next(int page) {
+            return buf.getInt(base(page) + 4);
+        }
+
+        /*
+        These methods read and write slot s of a page. A slot is named by its
+        byte position in the file.
+         */
+        int slot(int page, int s) {
+            return base(page) + PAGE_HEADER + s * SLOT_SIZE;
+        }
+
+        int hash(int slot) {
+            return buf.getInt(slot);
+        }
+
+        long offset(int slot) {
+            return buf.getLong(slot + 4);
+        }
+
+        void setOffset(int slot, long offset) {
+            buf.putLong(slot + 4, offset);
+        }
+
+        /*
+        This method adds a slot to the first page of the bucket's chain that
+        has room, chaining a new overflow page if none has.
+         */
+        void addSlot(int bucket, int hash, long offset) throws IOException {
+            int page = bucketPage(bucket);
+            while (count(page) == SLOTS_PER_PAGE) {
+                int next = next(page);
+                if (next == NO_PAGE) {
+                    next = allocatePage();
+                    buf.putInt(base(page) + 4, next);
+                }
+                page = next;
+            }
+            int count = count(page);
+            int slot = slot(page, count);
+            buf.putInt(slot, hash);
+            buf.putLong(slot + 4, offset);
+            buf.putInt(base(page), count + 1);
+        }
+
+        /*
+        This method removes a slot by moving the last slot of its page into
+        it. An overflow page left empty stays in its chain for reuse.
+         */
+        void removeSlot(int slot) {
+            int base = slot / PAGE_SIZE * PAGE_SIZE;
+            int count = buf.getInt(base);
+            int last = base + PAGE_HEADER + (count - 1) * SLOT_SIZE;
+            buf.putInt(slot, buf.getInt(last));
+            buf.putLong(slot + 4, buf.getLong(last + 4));
+            buf.putInt(base, count - 1);
+        }
+
+        void force() {
+            buf.force();
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+
+        private int base(int page) {
+            return (1 + page) * PAGE_SIZE;
+        }
+
+        /*
+        This method adds an empty overflow page at the end of the file,
+        mapping a larger file when the current mapping is full.
+         */
+        private int allocatePage() throws IOException {
+            int page = pageCount();
+            long needed = (long) (2 + page) * PAGE_SIZE;
+            if (needed > buf.capacity()) {
+                long bytes = Math.min(Integer.MAX_VALUE / PAGE_SIZE * PAGE_SIZE, Math.max(needed, 2L * buf.capacity()));
+                if (needed > bytes)
+                    throw new IOException("Index " + path + " would be larger than 2 GB");
+                buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            }
+            buf.putInt(12, page + 1);
+            buf.putInt(base(page), 0);
+            buf.putInt(base(page) + 4, NO_PAGE);
+            return page;
+        }
+    }
+
+    /**
+     * Buckets are chosen with hashCode() modulo a prime, as in
+     * SeparateChainingHashTable.
+     */
+    private static final HashStrategy STRATEGY = HashStrategy.modPrime();
+    private static final int DEFAULT_BUCKETS = 101;
+
+    static final int PAGE_SIZE = 4096;
+    private static final int PAGE_HEADER = 8;
+    private static final int SLOT_SIZE = 12;
+    static final int SLOTS_PER_PAGE = (PAGE_SIZE - PAGE_HEADER) / SLOT_SIZE;
+
+    /**
+     * The index grows once the buckets are this full on average, which
+     * leaves room for the fuller buckets before they overflow.
+     */
+    private static final double MAX_FILL = 0.75;
+    private static final int NO_PAGE = -1;
+    private static final int INDEX_MAGIC = 0x56494458; // "VIDX"
+    private static final int INDEX_VERSION = 1;
+    private static final int RECORD_HEADER = 8;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The log is mapped for reading in segments of this many bytes.
+     */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final Path logPath;
+    private final Path indexPath;
+    private FileChannel log;
+    private PageFile pages;
+    private int size;
+
+    /**
+     * Log bytes before flushedEnd are in the file; later records are still
+     * in pending.
+     */
+    private long flushedEnd;
+    private ByteBuffer pending = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private ByteBuffer found;
+    private ByteBuffer encodeBuffer = ByteBuffer.allocate(512);
+    private final CRC32 crc = new CRC32();
+}
@@ -0,0 +1,137 @@
+/**********************************************************************
+ * @file DiskIndexBenchmark.java
+ * @brief This program compares a DiskHashIndex with a heap-resident
+ * SeparateChainingHashTable. It streams records made by repeating the
+ * volcano CSV under new volcano numbers into both, so the dataset can
+ * be much larger than the heap, and reports the insert rate and the
+ * latency of random lookups. The heap table is filled until it runs
+ * out of memory. The index is then reopened, a tenth of its records
+ * are removed, and the log is compacted.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+public class DiskIndexBenchmark {
+    // Usage: java -Xmx64m DiskIndexBenchmark <input file> <index base name> [records] [lookups]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java DiskIndexBenchmark <input file> <index base name> [records] [lookups]");
+            System.exit(1);
+        }
+        ArrayList<Volcano> base = MappedCsvLoader.load(args[0], Integer.MAX_VALUE);
+        int records = args.length > 2 ? Integer.parseInt(args[2]) : 2000000;
+        int lookups = args.length > 3 ? Integer.parseInt(args[3]) : 200000;
+        System.out.println("Records=" + records + ", Max Heap(MB)=" + Runtime.getRuntime().maxMemory() / (1 << 20));
+
+        //The disk index, from empty.
+        Files.deleteIfExists(Paths.get(args[1] + ".log"));
+        Files.deleteIfExists(Paths.get(args[1] + ".idx"));
+        DiskHashIndex index = DiskHashIndex.open(args[1]);
+        long start = System.nanoTime();
+        for (int i = 0; i < records; i++)
+            index.insert(record(base, i));
+        index.force();
+        long insertTime = System.nanoTime() - start;
+        System.out.println("Disk index: Inserts/sec=" + rate(records, insertTime)
+                + ", Log(MB)=" + index.logBytes() / (1 << 20) + ", Index(MB)=" + index.indexBytes() / (1 << 20)
+                + ", Lookup(ns/op)=" + lookupNanos(index, records, lookups)
+                + ", Miss(ns/op)=" + missNanos(index, lookups));
+        index.close();
+
+        //The heap table, until it holds every record or the heap is full.
+        SeparateChainingHashTable<Volcano> table = new SeparateChainingHashTable<>();
+        int held = 0;
+        start = System.nanoTime();
+        try {
+            for (; held < records; held++)
+                table.insert(record(base, held));
+        } catch (OutOfMemoryError e) {
+            table = null;
+        }
+        long heapTime = System.nanoTime() - start;
+        if (table == null) {
+            System.out.println("Heap table: OutOfMemoryError after " + held + " records");
+        } else {
+            System.out.println("Heap table: Inserts/sec=" + rate(records, heapTime)
+                    + ", Lookup(ns/op)=" + lookupNanos(table, base, records, lookups));
+            table = null;
+        }
+
+        //Reopen the clean index, then remove a tenth of it and compact.
+        start = System.nanoTime();
+        index = DiskHashIndex.open(args[1]);
+        long openTime = System.nanoTime() - start;
+        for (int i = 0; i < records; i += 10)
+            index.remove(record(base, i).getNumber());
+        long before = index.logBytes();
+        start = System.nanoTime();
+        index.compact();
+        long compactTime = System.nanoTime() - start;
+        System.out.println("Reopen(ms)=" + openTime / 1000000 + ", Size after removes=" + index.size()
+                + ", Compact(ms)=" + compactTime / 1000000 + ", Log(MB) " + before / (1 << 20)
+                + " -> " + index.logBytes() / (1 << 20));
+
+        //Check a sample of the survivors against the records they came from.
+        SplittableRandom random = new SplittableRandom(7);
+        for (int k = 0; k < 1000; k++) {
+            int i = random.nextInt(records);
+            Volcano expected = record(base, i);
+            Volcano found = index.get(expected.getNumber());
+            if (i % 10 == 0 ? found != null : !expected.equals(found))
+                System.out.println("Mismatch for " + expected.getNumber());
+        }
+        index.close();
+    }
+
+    // Record i: a copy of a real volcano under its own number.
+    private static Volcano record(ArrayList<Volcano> base, int i) {
+        Volcano v = new Volcano(base.get(i % base.size()));
+        v.setNumber("D" + i);
+        return v;
+    }
+
+    // Mean nanoseconds per get() of a random stored record.
+    private static long lookupNanos(DiskHashIndex index, int records, int lookups) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        long start = System.nanoTime();
+        for (int k = 0; k < lookups; k++)
+            if (index.get("D" + random.nextInt(records)) != null)
+                sink++;
+        return (System.nanoTime() - start) / lookups;
+    }
+
+    // Mean nanoseconds per contains() of a number that is not stored.
+    private static long missNanos(DiskHashIndex index, int lookups) throws IOException {
+        long start = System.nanoTime();
+        for (int k = 0; k < lookups; k++)
+            if (index.contains("M" + k))
+                sink++;
+        return (System.nanoTime() - start) / lookups;
+    }
+
+    // Mean nanoseconds per contains() of a random stored record.
+    private static long lookupNanos(SeparateChainingHashTable<Volcano> table, ArrayList<Volcano> base,
+                                    int records, int lookups) {
+        SplittableRandom random = new SplittableRandom(42);
+        long start = System.nanoTime();
+        for (int k = 0; k < lookups; k++)
+            if (table.contains(record(base, random.nextInt(records))))
+                sink++;
+        return (System.nanoTime() - start) / lookups;
+    }
+
+    private static long rate(long n, long nanos) {
+        return nanos == 0 ? 0 : n * 1000000000L / nanos;
+    }
+
+    /**
+     * Results are added here so the JIT cannot drop the lookups.
+     */
+    private static volatile long sink;
+}
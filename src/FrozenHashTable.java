@@ -0,0 +1,358 @@
+/**********************************************************************
+ * @file FrozenHashTable.java
+ * @brief This program implements the FrozenHashTable class. It is a
+ * read-only hash table for data that is loaded once and then only
+ * queried, such as the volcano dataset. The items are kept in one flat
+ * array with no empty slots, and a minimal perfect hash function built
+ * the BBHash way maps every stored item to its own slot: a lookup reads
+ * one bit per level until it finds its level, ranks that bit to get the
+ * slot, and compares exactly one item. A byte of each item's hash is
+ * kept by slot as well, so most absent items are turned away before
+ * the stored item is read. Items whose hash codes are equal
+ * cannot be told apart by any level, so those few are kept in a small
+ * sorted list at the end of the array instead.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// FrozenHashTable class
+//
+// CONSTRUCTION: the items to hold, and optionally the bits per item of
+// each level (gamma), at least 1
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean contains( x )   --> Return true if x is present
+// AnyType get( x )        --> The stored item equal to x, or null
+// int size( )             --> Return the number of items
+// double bitsPerKey( )    --> Size of the hash function per item
+// int getLevelCount( )    --> Levels of the hash function
+// int getFallbackCount( ) --> Items kept outside the hash function
+// String shapeSummary( )  --> Levels, bits per key and probes on one line
+// int containsAll( items ) --> Count the batch items present
+//
+// SeparateChainingHashTable.freeze( ) builds one from a table. Items
+// must not be null, and must not change while they are stored.
+
+public class FrozenHashTable<AnyType> implements HashLookup<AnyType> {
+    /**
+     * Construct the table with the default gamma of 2.
+     *
+     * @param items the items to hold. Duplicates are stored once.
+     */
+    public FrozenHashTable(Iterable<? extends AnyType> items) {
+        this(items, DEFAULT_GAMMA);
+    }
+
+    /**
+     * Construct the table.
+     *
+     * @param items the items to hold. Duplicates are stored once.
+     * @param gamma the bits each level has per item it still has to
+     *              place. Larger values place more items per level, so
+     *              lookups read fewer levels, but take more bits.
+     */
+    public FrozenHashTable(Iterable<? extends AnyType> items, double gamma) {
+        if (!(gamma >= 1))
+            throw new IllegalArgumentException("Gamma must be at least 1: " + gamma);
+        ArrayList<Object> list = new ArrayList<>();
+        for (AnyType x : items)
+            list.add(x);
+        int n = list.size();
+        long[] bases = new long[n];
+        for (int k = 0; k < n; k++)
+            bases[k] = mix(list.get(k).hashCode());
+
+        //Each level places the items that land alone on a bit and passes the
+        //rest on. placedAt holds the global bit of each placed item, or -1.
+        long[] placedAt = new long[n];
+        Arrays.fill(placedAt, -1);
+        int[] remaining = new int[n];
+        for (int k = 0; k < n; k++)
+            remaining[k] = k;
+        int remainingCount = n;
+        ArrayList<long[]> levels = new ArrayList<>();
+        long[] starts = new long[MAX_LEVELS + 1];
+        long totalBits = 0;
+        while (remainingCount > 0 && levels.size() < MAX_LEVELS) {
+            int level = levels.size();
+            long levelBits = Math.max(64, ((long) Math.ceil(gamma * remainingCount) + 63) & ~63L);
+            long[] seen = new long[(int) (levelBits >>> 6)];
+            long[] collided = new long[seen.length];
+            for (int r = 0; r < remainingCount; r++) {
+                long bit = position(bases[remaining[r]], level, levelBits);
+                int w = (int) (bit >>> 6);
+                if ((seen[w] & (1L << bit)) != 0)
+                    collided[w] |= 1L << bit;
+                seen[w] |= 1L << bit;
+            }
+            //Keep only the bits exactly one item landed on.
+            for (int w = 0; w < seen.length; w++)
+                seen[w] &= ~collided[w];
+            int next = 0;
+            for (int r = 0; r < remainingCount; r++) {
+                int k = remaining[r];
+                long bit = position(bases[k], level, levelBits);
+                if ((seen[(int) (bit >>> 6)] & (1L << bit)) != 0)
+                    placedAt[k] = totalBits + bit;
+                else
+                    remaining[next++] = k;
+            }
+            //A level that places nothing holds only items no level can split.
+            if (next == remainingCount)
+                break;
+            remainingCount = next;
+            levels.add(seen);
+            starts[level] = totalBits;
+            totalBits += levelBits;
+        }
+        levelCount = levels.size();
+        levelStarts = Arrays.copyOf(starts, levelCount);
+        levelBitCounts = new long[levelCount];
+        for (int level = 0; level < levelCount; level++)
+            levelBitCounts[level] = (long) levels.get(level).length * 64;
+
+        //Lay the levels end to end and count the bits set before each block.
+        if (totalBits / 64 > MAX_ARRAY || gamma * n >= 1L << 32)
+            throw new IllegalArgumentException("Too many items to freeze: " + n);
+        bits = new long[(int) (totalBits / 64)];
+        int offset = 0;
+        for (long[] level : levels) {
+            System.arraycopy(level, 0, bits, offset, level.length);
+            offset += level.length;
+        }
+        ranks = new int[(bits.length + WORDS_PER_RANK - 1) / WORDS_PER_RANK];
+        int count = 0;
+        for (int w = 0; w < bits.length; w++) {
+            if (w % WORDS_PER_RANK == 0)
+                ranks[w / WORDS_PER_RANK] = count;
+            count += Long.bitCount(bits[w]);
+        }
+        placedCount = count;
+
+        //Every placed item goes to the slot its bit ranks to. The others,
+        //mostly items that share a hash code, follow in order of hash code,
+        //with duplicates dropped.
+        Object[] leftovers = new Object[remainingCount];
+        for (int r = 0; r < remainingCount; r++)
+            leftovers[r] = list.get(remaining[r]);
+        Arrays.sort(leftovers, (a, b) -> Integer.compare(a.hashCode(), b.hashCode()));
+        int fallback = 0;
+        for (Object x : leftovers) {
+            if (indexOfFallback(leftovers, fallback, x) < 0)
+                leftovers[fallback++] = x;
+        }
+        keys = new Object[placedCount + fallback];
+        for (int k = 0; k < n; k++) {
+            if (placedAt[k] >= 0)
+                keys[rank(placedAt[k])] = list.get(k);
+        }
+        System.arraycopy(leftovers, 0, keys, placedCount, fallback);
+        fingerprints = new byte[placedCount];
+        for (int k = 0; k < n; k++) {
+            if (placedAt[k] >= 0)
+                fingerprints[rank(placedAt[k])] = fingerprint(bases[k]);
+        }
+        fallbackHashes = new int[fallback];
+        for (int f = 0; f < fallback; f++)
+            fallbackHashes[f] = leftovers[f].hashCode();
+
+        //For the shape: how many levels a lookup of each stored item reads.
+        for (int k = 0; k < n; k++) {
+            if (placedAt[k] >= 0)
+                levelReads += levelOf(placedAt[k]) + 1;
+        }
+        levelReads += (long) fallback * levelCount;
+    }
+
+    /**
+     * Find an item in the hash table.
+     *
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    public boolean contains(AnyType x) {
+        return get(x) != null;
+    }
+
+    /**
+     * Return the stored item equal to x. Only one stored item is ever
+     * compared with x.
+     *
+     * @param x the item to search for.
+     * @return the stored item, or null if x is absent.
+     */
+    @SuppressWarnings("unchecked")
+    public AnyType get(Object x) {
+        int hash = x.hashCode();
+        long base = mix(hash);
+        for (int level = 0; level < levelCount; level++) {
+            long bit = levelStarts[level] + position(base, level, levelBitCounts[level]);
+            //A set bit is the one slot x can be in. Its fingerprint turns most
+            //absent items away without reading the stored item.
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) != 0) {
+                int slot = rank(bit);
+                if (fingerprints[slot] != fingerprint(base))
+                    return null;
+                Object stored = keys[slot];
+                return x.equals(stored) ? (AnyType) stored : null;
+            }
+        }
+        //Past every level: x is absent or shares its hash code with another item.
+        int f = Arrays.binarySearch(fallbackHashes, hash);
+        if (f < 0)
+            return null;
+        while (f > 0 && fallbackHashes[f - 1] == hash)
+            f--;
+        for (; f < fallbackHashes.length && fallbackHashes[f] == hash; f++) {
+            if (x.equals(keys[placedCount + f]))
+                return (AnyType) keys[placedCount + f];
+        }
+        return null;
+    }
+
+    /**
+     * Return the number of items in the hash table.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Return the size of the hash function per item: the level bits, the
+     * rank counts and the hash codes of the fallback items. The item
+     * array and the fingerprints, 8 bits per item, are not counted.
+     *
+     * @return bits per item, or 0 for an empty table.
+     */
+    public double bitsPerKey() {
+        if (keys.length == 0)
+            return 0;
+        long total = (long) bits.length * 64 + (long) ranks.length * 32 + (long) fallbackHashes.length * 32
+                + (long) levelCount * 128;
+        return (double) total / keys.length;
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    public int getFallbackCount() {
+        return fallbackHashes.length;
+    }
+
+    /**
+     * Return the current shape of the table on one line: the load factor
+     * of the item array, which is always full, the levels of the hash
+     * function and how many of them a successful lookup reads, the bits
+     * per key, and the items compared per lookup.
+     *
+     * @return the table shape.
+     */
+    public String shapeSummary() {
+        return "Load Factor=" + (keys.length == 0 ? "0.000" : "1.000") + ", Levels=" + levelCount
+                + ", Avg Levels Read=" + String.format("%.2f", keys.length == 0 ? 0 : (double) levelReads / keys.length)
+                + ", Bits/key=" + String.format("%.2f", bitsPerKey()) + " + 8 fingerprint"
+                + ", Fallback=" + fallbackHashes.length + ", Items Compared=1";
+    }
+
+    /*
+    This method returns the slot of a set bit: the number of bits set before
+    it. The count before its block is stored, and the rest is counted.
+     */
+    private int rank(long bit) {
+        int w = (int) (bit >>> 6);
+        int r = ranks[w / WORDS_PER_RANK];
+        for (int j = w - w % WORDS_PER_RANK; j < w; j++)
+            r += Long.bitCount(bits[j]);
+        return r + Long.bitCount(bits[w] & ((1L << bit) - 1));
+    }
+
+    /*
+    This method returns the level a global bit belongs to.
+     */
+    private int levelOf(long bit) {
+        int level = 0;
+        while (level + 1 < levelCount && levelStarts[level + 1] <= bit)
+            level++;
+        return level;
+    }
+
+    /*
+    This method returns the bit of an item within a level of levelBits bits,
+    which must be below 2^32.
+    Each level mixes the item's base hash with its own constant, so items
+    that collide on one level are spread independently on the next.
+     */
+    private static long position(long base, int level, long levelBits) {
+        long h = mix(base + (level + 1) * 0x9E3779B97F4A7C15L);
+        //Multiply instead of dividing to map the high bits onto [0, levelBits).
+        return ((h >>> 32) * levelBits) >>> 32;
+    }
+
+    /*
+    This method returns the fingerprint of an item: the top bits of its base
+    hash, which no level uses on its own.
+     */
+    private static byte fingerprint(long base) {
+        return (byte) (base >>> 56);
+    }
+
+    /*
+    This method returns where x is among the first count leftovers, or -1.
+     */
+    private static int indexOfFallback(Object[] leftovers, int count, Object x) {
+        for (int f = count - 1; f >= 0 && leftovers[f].hashCode() == x.hashCode(); f--) {
+            if (x.equals(leftovers[f]))
+                return f;
+        }
+        return -1;
+    }
+
+    /*
+    This method spreads every input bit over the 64-bit result, with the
+    finalizer HashStrategy's mixing strategies use.
+     */
+    private static long mix(long h) {
+        return HashStrategy.Mixed.fmix64(h);
+    }
+
+    private static final double DEFAULT_GAMMA = 2.0;
+    /**
+     * The most levels built; the rest go to the fallback. Building stops
+     * sooner once a level places nothing, which happens when the items
+     * left all share hash codes.
+     */
+    private static final int MAX_LEVELS = 32;
+    private static final int WORDS_PER_RANK = 8;
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+
+    /**
+     * The items: placed items in the slots their bits rank to, then the
+     * fallback items in order of hash code.
+     */
+    private final Object[] keys;
+    /**
+     * The levels laid end to end; a set bit is the bit of exactly one
+     * placed item.
+     */
+    private final long[] bits;
+    /**
+     * The number of bits set before each block of WORDS_PER_RANK words.
+     */
+    private final int[] ranks;
+    /**
+     * One byte of each placed item's hash, by slot.
+     */
+    private final byte[] fingerprints;
+    private final long[] levelStarts;
+    private final long[] levelBitCounts;
+    private final int levelCount;
+    private final int placedCount;
+    private final int[] fallbackHashes;
+    private long levelReads;
+}
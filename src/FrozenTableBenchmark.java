@@ -0,0 +1,97 @@
+/**********************************************************************
+ * @file FrozenTableBenchmark.java
+ * @brief This program compares a FrozenHashTable with the mutable
+ * SeparateChainingHashTable it was frozen from. It fills a table of
+ * each bucket type with synthetic volcanoes, times freeze() and reports
+ * the bits per key and levels of the perfect hash, then times contains()
+ * on both tables over a trace of stored volcanoes and a trace of
+ * volcanoes that were never stored.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class FrozenTableBenchmark {
+    // Usage: java FrozenTableBenchmark <input file> [records] [lookups]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java FrozenTableBenchmark <input file> [records] [lookups]");
+            System.exit(1);
+        }
+        int records = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 2000000;
+
+        //The first half is stored, the second half never is.
+        VolcanoGenerator generator = new VolcanoGenerator(MappedCsvLoader.load(args[0], Integer.MAX_VALUE),
+                VolcanoGenerator.DEFAULT_SKEW, 0, VolcanoGenerator.DEFAULT_SEED);
+        ArrayList<Volcano> all = generator.generate(2 * records);
+        //Volcano caches its hash code; compute them all now so no timing pays for it.
+        for (Volcano v : all)
+            sink += v.hashCode();
+        List<Volcano> stored = all.subList(0, records);
+        List<Volcano> absent = all.subList(records, 2 * records);
+        SplittableRandom random = new SplittableRandom(VolcanoGenerator.DEFAULT_SEED);
+        Volcano[] hitTrace = new Volcano[lookups];
+        Volcano[] missTrace = new Volcano[lookups];
+        for (int k = 0; k < lookups; k++) {
+            hitTrace[k] = stored.get(random.nextInt(records));
+            missTrace[k] = absent.get(random.nextInt(records));
+        }
+        System.out.println("Records=" + records + ", Lookups=" + lookups);
+
+        for (SeparateChainingHashTable.BucketType bucketType : SeparateChainingHashTable.BucketType.values()) {
+            SeparateChainingHashTable<Volcano> table = new SeparateChainingHashTable<>(101, false, bucketType);
+            long start = System.nanoTime();
+            for (Volcano v : stored)
+                table.insert(v);
+            long insertTime = System.nanoTime() - start;
+
+            //Keep the fastest of several builds, so the JIT has warmed up.
+            HashLookup<Volcano> frozen = null;
+            long freezeTime = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                start = System.nanoTime();
+                frozen = table.freeze();
+                freezeTime = Math.min(freezeTime, System.nanoTime() - start);
+            }
+
+            long tableHit = Long.MAX_VALUE, frozenHit = Long.MAX_VALUE;
+            long tableMiss = Long.MAX_VALUE, frozenMiss = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                tableHit = Math.min(tableHit, lookupNanos(table, hitTrace));
+                frozenHit = Math.min(frozenHit, lookupNanos(frozen, hitTrace));
+                tableMiss = Math.min(tableMiss, lookupNanos(table, missTrace));
+                frozenMiss = Math.min(frozenMiss, lookupNanos(frozen, missTrace));
+            }
+
+            System.out.println(bucketType + " buckets: Build(ms) " + insertTime / 1000000 + " -> Freeze(ms) "
+                    + String.format("%.1f", freezeTime / 1e6) + ", " + frozen.shapeSummary());
+            System.out.println(bucketType + " buckets: Hit Lookup(ns/op) " + perOp(tableHit, lookups)
+                    + " -> " + perOp(frozenHit, lookups) + ", Miss Lookup(ns/op) " + perOp(tableMiss, lookups)
+                    + " -> " + perOp(frozenMiss, lookups) + ", Mutable " + table.shapeSummary());
+        }
+    }
+
+    private static long lookupNanos(HashLookup<Volcano> table, Volcano[] trace) {
+        long start = System.nanoTime();
+        for (Volcano v : trace)
+            if (table.contains(v))
+                sink++;
+        return System.nanoTime() - start;
+    }
+
+    private static String perOp(long nanos, int ops) {
+        return String.format("%.1f", (double) nanos / ops);
+    }
+
+    private static final int ROUNDS = 6;
+
+    /**
+     * Results are added here so the JIT cannot drop the lookups.
+     */
+    private static volatile long sink;
+}
@@ -0,0 +1,251 @@
+/**********************************************************************
+ * @file GeoGridIndex.java
+ * @brief This program implements the GeoGridIndex class. It is a
+ * spatial index over Volcano records. The globe is cut into cells of a
+ * fixed number of degrees, and a SeparateChainingHashMap maps each
+ * non-empty cell to the posting list of record IDs inside it. Radius
+ * and bounding-box queries only visit the cells that overlap the
+ * query area and test the exact distance on the records they hold.
+ * Every record needs a position: insert rejects a volcano without a
+ * latitude or longitude before storing anything.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// GeoGridIndex class
+//
+// CONSTRUCTION: the cell size in degrees or default of 1
+//
+// ******************PUBLIC OPERATIONS*********************
+// int insert( v )                        --> Store v and return its record ID
+// boolean remove( id )                   --> Remove the record with this ID
+// Volcano get( id )                      --> Return the record with this ID
+// List withinRadius( lat, lon, km )      --> Records within km of a point
+// List withinBox( lat1, lat2, lon1, lon2 ) --> Records inside a box
+// double distanceKm( ... )               --> Great-circle distance
+
+public class GeoGridIndex {
+    /**
+     * Construct the index with one-degree cells.
+     */
+    public GeoGridIndex() {
+        this(DEFAULT_CELL_DEGREES);
+    }
+
+    /**
+     * Construct the index.
+     *
+     * @param cellDegrees the width and height of a cell in degrees.
+     */
+    public GeoGridIndex(double cellDegrees) {
+        if (!(cellDegrees > 0) || cellDegrees > 180)
+            throw new IllegalArgumentException("Cell size must be in (0, 180] degrees: " + cellDegrees);
+        this.cellDegrees = cellDegrees;
+        rows = (int) Math.ceil(180 / cellDegrees);
+        cols = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Store a volcano and add it to the cell holding its position.
+     *
+     * @param v the volcano to store.
+     * @return its record ID.
+     * @throws IllegalArgumentException if v has no latitude or longitude.
+     */
+    public int insert(Volcano v) {
+        Double lat = v.getLatitude(), lon = v.getLongitude();
+        if (lat == null || lon == null || lat.isNaN() || lon.isNaN())
+            throw new IllegalArgumentException("Volcano " + v.getNumber() + " has no position: " + lat + ", " + lon);
+        int id = records.size();
+        records.add(v);
+        //Keep the coordinates unboxed so queries do not chase the Double objects.
+        if (id == lats.length) {
+            lats = Arrays.copyOf(lats, id * 2);
+            lons = Arrays.copyOf(lons, id * 2);
+        }
+        lats[id] = lat;
+        lons[id] = lon;
+        cells.computeIfAbsent(cellOf(lats[id], lons[id]), k -> new PostingList()).add(id);
+        size++;
+        return id;
+    }
+
+    /**
+     * Remove a record from the index.
+     *
+     * @param id the record ID.
+     * @return true if the record was present.
+     */
+    public boolean remove(int id) {
+        if (get(id) == null)
+            return false;
+        Integer cell = cellOf(lats[id], lons[id]);
+        PostingList postings = cells.get(cell);
+        postings.remove(id);
+        if (postings.size() == 0)
+            cells.remove(cell);
+        records.set(id, null);
+        size--;
+        return true;
+    }
+
+    /**
+     * Return the record with an ID.
+     *
+     * @param id the record ID.
+     * @return the volcano, or null if there is no such record.
+     */
+    public Volcano get(int id) {
+        return id >= 0 && id < records.size() ? records.get(id) : null;
+    }
+
+    /**
+     * Return the number of records stored.
+     *
+     * @return the number of records.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the records within a distance of a point.
+     *
+     * @param lat latitude of the point in degrees.
+     * @param lon longitude of the point in degrees.
+     * @param km  the radius in kilometres.
+     * @return the records whose great-circle distance is at most km.
+     */
+    public List<Volcano> withinRadius(double lat, double lon, double km) {
+        List<Volcano> result = new ArrayList<>();
+        double angle = km / EARTH_RADIUS_KM;
+        double dLat = Math.toDegrees(angle);
+        double minLat = lat - dLat, maxLat = lat + dLat;
+        double minLon, maxLon;
+        //Near a pole, or for a radius past a quarter of the globe, every longitude is in range.
+        if (minLat <= -90 || maxLat >= 90 || angle >= Math.PI / 2) {
+            minLon = -180;
+            maxLon = 180;
+        } else {
+            //The widest longitude span of a small circle around (lat, lon).
+            double dLon = Math.toDegrees(Math.asin(Math.min(1, Math.sin(angle) / Math.cos(Math.toRadians(lat)))));
+            minLon = lon - dLon;
+            maxLon = lon + dLon;
+        }
+        visit(minLat, maxLat, minLon, maxLon, id -> {
+            if (distanceKm(lat, lon, lats[id], lons[id]) <= km)
+                result.add(records.get(id));
+        });
+        return result;
+    }
+
+    /**
+     * Find the records inside a latitude/longitude box. If minLon is
+     * greater than maxLon the box crosses the 180th meridian.
+     *
+     * @param minLat southern edge in degrees.
+     * @param maxLat northern edge in degrees.
+     * @param minLon western edge in degrees.
+     * @param maxLon eastern edge in degrees.
+     * @return the records inside the box, edges included.
+     */
+    public List<Volcano> withinBox(double minLat, double maxLat, double minLon, double maxLon) {
+        List<Volcano> result = new ArrayList<>();
+        double east = minLon <= maxLon ? maxLon : maxLon + 360;
+        visit(minLat, maxLat, minLon, east, id -> {
+            double lon = lons[id];
+            boolean inLon = minLon <= maxLon ? lon >= minLon && lon <= maxLon : lon >= minLon || lon <= maxLon;
+            if (inLon && lats[id] >= minLat && lats[id] <= maxLat)
+                result.add(records.get(id));
+        });
+        return result;
+    }
+
+    /**
+     * Return the great-circle distance between two points using the
+     * haversine formula.
+     *
+     * @param lat1 latitude of the first point in degrees.
+     * @param lon1 longitude of the first point in degrees.
+     * @param lat2 latitude of the second point in degrees.
+     * @param lon2 longitude of the second point in degrees.
+     * @return the distance in kilometres.
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /*
+    This method passes the ID of every record in the cells overlapping a box to
+    visitor. Longitudes may run past 180 and are wrapped around the globe.
+     */
+    private void visit(double minLat, double maxLat, double minLon, double maxLon, IdVisitor visitor) {
+        int firstRow = row(Math.max(minLat, -90));
+        int lastRow = row(Math.min(maxLat, 90));
+        //A box at least a full turn wide covers every column once.
+        int firstCol, colCount;
+        if (maxLon - minLon >= 360) {
+            firstCol = 0;
+            colCount = cols;
+        } else {
+            firstCol = col(minLon);
+            colCount = Math.min(cols, (int) Math.floor((maxLon + 180) / cellDegrees)
+                    - (int) Math.floor((minLon + 180) / cellDegrees) + 1);
+        }
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int k = 0; k < colCount; k++) {
+                PostingList postings = cells.get(r * cols + (firstCol + k) % cols);
+                if (postings != null)
+                    for (int i = 0; i < postings.size(); i++)
+                        visitor.visit(postings.get(i));
+            }
+        }
+    }
+
+    /*
+    This method returns the cell number of a position.
+     */
+    private Integer cellOf(double lat, double lon) {
+        return row(lat) * cols + col(lon);
+    }
+
+    private int row(double lat) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((lat + 90) / cellDegrees)));
+    }
+
+    private int col(double lon) {
+        int c = (int) Math.floor((lon + 180) / cellDegrees) % cols;
+        return c < 0 ? c + cols : c;
+    }
+
+    /*
+    Receives each record ID a query visits.
+     */
+    private interface IdVisitor {
+        void visit(int id);
+    }
+
+    private static final double DEFAULT_CELL_DEGREES = 1.0;
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double cellDegrees;
+    private final int rows;
+    private final int cols;
+
+    /**
+     * Cell number -> IDs of the records in that cell. Empty cells are absent.
+     */
+    private final SeparateChainingHashMap<Integer, PostingList> cells = new SeparateChainingHashMap<>();
+    private final ArrayList<Volcano> records = new ArrayList<>();
+    private double[] lats = new double[16];
+    private double[] lons = new double[16];
+    private int size;
+}
@@ -0,0 +1,93 @@
+/**********************************************************************
+ * @file GeoIndexBenchmark.java
+ * @brief This program compares GeoGridIndex radius queries with a
+ * linear haversine scan, first on the volcano CSV and then on a
+ * synthetic dataset of random points spread evenly over the globe. It
+ * checks that both methods return the same number of records.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class GeoIndexBenchmark {
+    // Usage: java GeoIndexBenchmark <input file> [synthetic points] [radius km]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java GeoIndexBenchmark <input file> [synthetic points] [radius km]");
+            System.exit(1);
+        }
+        int synthetic = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+        double km = args.length > 2 ? Double.parseDouble(args[2]) : 250;
+
+        ArrayList<Volcano> volcanoes = MappedCsvLoader.load(args[0], Integer.MAX_VALUE);
+        run("CSV", volcanoes, km, 2000);
+        volcanoes = null;
+
+        run("Synthetic", syntheticVolcanoes(synthetic, new Random(42)), km, 20);
+    }
+
+    // Builds an index over the volcanoes, then times the same random radius
+    // queries through the index and through a linear scan.
+    private static void run(String name, List<Volcano> volcanoes, double km, int queries) {
+        long startBuild = System.nanoTime();
+        GeoGridIndex index = new GeoGridIndex();
+        for (Volcano v : volcanoes)
+            index.insert(v);
+        long timeBuild = System.nanoTime();
+
+        //Query around random records so most queries find something.
+        Random rand = new Random(7);
+        double[] qLat = new double[queries], qLon = new double[queries];
+        for (int i = 0; i < queries; i++) {
+            Volcano v = volcanoes.get(rand.nextInt(volcanoes.size()));
+            qLat[i] = v.getLatitude();
+            qLon[i] = v.getLongitude();
+        }
+
+        //Primitive copies keep the scan fair: neither side unboxes per test.
+        double[] lats = new double[volcanoes.size()], lons = new double[volcanoes.size()];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = volcanoes.get(i).getLatitude();
+            lons[i] = volcanoes.get(i).getLongitude();
+        }
+
+        long startScan = System.nanoTime();
+        long scanHits = 0;
+        for (int q = 0; q < queries; q++)
+            for (int i = 0; i < lats.length; i++)
+                if (GeoGridIndex.distanceKm(qLat[q], qLon[q], lats[i], lons[i]) <= km)
+                    scanHits++;
+        long timeScan = System.nanoTime();
+
+        long startIndex = System.nanoTime();
+        long indexHits = 0;
+        for (int q = 0; q < queries; q++)
+            indexHits += index.withinRadius(qLat[q], qLon[q], km).size();
+        long timeIndex = System.nanoTime();
+
+        if (scanHits != indexHits)
+            System.out.println("Mismatch: scan found " + scanHits + ", index found " + indexHits);
+
+        System.out.println(name + ": Records=" + volcanoes.size() + ", Queries=" + queries + ", Radius(km)=" + km
+                + ", Build Time(ns)=" + (timeBuild - startBuild)
+                + ", Scan Time/query(ns)=" + (timeScan - startScan) / queries
+                + ", Index Time/query(ns)=" + (timeIndex - startIndex) / queries
+                + ", Hits/query=" + indexHits / queries);
+    }
+
+    // Returns n volcanoes at random positions spread evenly over the sphere.
+    // The text fields are shared so the heap holds mostly coordinates.
+    private static List<Volcano> syntheticVolcanoes(int n, Random rand) {
+        List<Volcano> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            double lat = Math.toDegrees(Math.asin(2 * rand.nextDouble() - 1));
+            double lon = 360 * rand.nextDouble() - 180;
+            result.add(new Volcano("Synthetic", "", "", "", "", lat, lon, 0, "", "", ""));
+        }
+        return result;
+    }
+}
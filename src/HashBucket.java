@@ -0,0 +1,481 @@
+/**********************************************************************
+ * @file HashBucket.java
+ * @brief This program implements the HashBucket class. A HashBucket is
+ * one chain of a SeparateChainingHashTable. Chains normally start as a
+ * compact array of items with each item's hash stored next to it, and
+ * turn into a balanced tree when they grow long and the items are
+ * Comparable. The original LinkedList chain is kept for benchmarking.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.ObjIntConsumer;
+
+abstract class HashBucket<AnyType> {
+    /**
+     * Chains at least this long are turned into trees.
+     */
+    static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * Trees this short or shorter are turned back into arrays.
+     */
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    /**
+     * Create an empty bucket of the given type.
+     *
+     * @param type     the kind of chain to create.
+     * @param strategy the table's strategy, for chains that do not keep
+     *                 the hashes they were given.
+     * @return the new bucket.
+     */
+    static <AnyType> HashBucket<AnyType> create(SeparateChainingHashTable.BucketType type, HashStrategy strategy) {
+        if (type == SeparateChainingHashTable.BucketType.LINKED_LIST)
+            return new ListBucket<>(strategy);
+        return new ArrayBucket<>();
+    }
+
+    /**
+     * Find an item in the bucket.
+     *
+     * @param x    the item to search for.
+     * @param hash the hash code of x.
+     * @return true if x is found.
+     */
+    abstract boolean contains(Object x, int hash);
+
+    /**
+     * Find the stored item equal to x.
+     *
+     * @param x    the item to search for.
+     * @param hash the hash code of x.
+     * @return the stored item, or null if x is not found.
+     */
+    abstract AnyType get(Object x, int hash);
+
+    /**
+     * Insert into the bucket. If the item is already present, then do nothing.
+     *
+     * @param x    the item to insert.
+     * @param hash the hash code of x.
+     * @return true if x was added.
+     */
+    abstract boolean add(AnyType x, int hash);
+
+    /**
+     * Insert an item that is known not to be in the bucket.
+     *
+     * @param x    the item to insert.
+     * @param hash the hash code of x.
+     */
+    abstract void addDistinct(AnyType x, int hash);
+
+    /**
+     * Remove from the bucket.
+     *
+     * @param x    the item to remove.
+     * @param hash the hash code of x.
+     * @return true if x was removed.
+     */
+    abstract boolean remove(Object x, int hash);
+
+    /**
+     * The number of items the last contains, add or remove compared x
+     * against, counted during that search so the table's metrics do not
+     * need a second one.
+     */
+    int lastProbes;
+
+    /**
+     * Return the number of items in the bucket.
+     *
+     * @return the number of items.
+     */
+    abstract int size();
+
+    /**
+     * Pass every item and its hash code to action.
+     *
+     * @param action the callback to run.
+     */
+    abstract void forEach(ObjIntConsumer<? super AnyType> action);
+
+    /**
+     * Return an iterator over the items. The bucket must not change while
+     * the iterator is in use.
+     *
+     * @return the iterator.
+     */
+    abstract Iterator<AnyType> iterator();
+
+    /**
+     * Return the bucket that should replace this one after it changed size.
+     * Long array chains of Comparable items become trees and short trees
+     * become arrays again. Other buckets return themselves.
+     *
+     * @return this bucket or its replacement.
+     */
+    HashBucket<AnyType> resize() {
+        return this;
+    }
+
+    /*
+    The original chain: a LinkedList that ignores the hash code. The hashes
+    forEach() reports are recomputed with the table's strategy.
+     */
+    static final class ListBucket<AnyType> extends HashBucket<AnyType> {
+        private final LinkedList<AnyType> list = new LinkedList<>();
+        private final HashStrategy strategy;
+
+        ListBucket(HashStrategy strategy) {
+            this.strategy = strategy;
+        }
+
+        boolean contains(Object x, int hash) {
+            return indexOf(x) >= 0;
+        }
+
+        AnyType get(Object x, int hash) {
+            int compared = 0;
+            for (AnyType item : list) {
+                compared++;
+                if (x.equals(item)) {
+                    lastProbes = compared;
+                    return item;
+                }
+            }
+            lastProbes = compared;
+            return null;
+        }
+
+        boolean add(AnyType x, int hash) {
+            if (indexOf(x) >= 0)
+                return false;
+            list.add(x);
+            return true;
+        }
+
+        void addDistinct(AnyType x, int hash) {
+            list.add(x);
+        }
+
+        boolean remove(Object x, int hash) {
+            //Walk the list once, unlinking the match through the iterator.
+            int compared = 0;
+            for (Iterator<AnyType> it = list.iterator(); it.hasNext(); ) {
+                compared++;
+                if (x.equals(it.next())) {
+                    it.remove();
+                    lastProbes = compared;
+                    return true;
+                }
+            }
+            lastProbes = compared;
+            return false;
+        }
+
+        int size() {
+            return list.size();
+        }
+
+        void forEach(ObjIntConsumer<? super AnyType> action) {
+            for (AnyType item : list)
+                action.accept(item, strategy.hash(item));
+        }
+
+        Iterator<AnyType> iterator() {
+            return list.iterator();
+        }
+
+        /*
+        This method returns the position of x in the list, or -1, and records
+        how many items it compared.
+         */
+        private int indexOf(Object x) {
+            int i = list.indexOf(x);
+            lastProbes = i >= 0 ? i + 1 : list.size();
+            return i;
+        }
+    }
+
+    /*
+    A chain stored as two parallel arrays. The cached hash is compared
+    before equals() is called, so most mismatches cost one int comparison.
+     */
+    static final class ArrayBucket<AnyType> extends HashBucket<AnyType> {
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private Object[] items = new Object[INITIAL_CAPACITY];
+        private int size;
+
+        private static final int INITIAL_CAPACITY = 2;
+
+        boolean contains(Object x, int hash) {
+            return indexOf(x, hash) >= 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        AnyType get(Object x, int hash) {
+            int i = indexOf(x, hash);
+            return i >= 0 ? (AnyType) items[i] : null;
+        }
+
+        boolean add(AnyType x, int hash) {
+            if (indexOf(x, hash) >= 0)
+                return false;
+            addDistinct(x, hash);
+            return true;
+        }
+
+        void addDistinct(AnyType x, int hash) {
+            //Double the arrays when they are full.
+            if (size == items.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                items = Arrays.copyOf(items, size * 2);
+            }
+            hashes[size] = hash;
+            items[size] = x;
+            size++;
+        }
+
+        boolean remove(Object x, int hash) {
+            int i = indexOf(x, hash);
+            if (i < 0)
+                return false;
+            //Order does not matter, so fill the hole with the last item.
+            size--;
+            hashes[i] = hashes[size];
+            items[i] = items[size];
+            items[size] = null;
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(ObjIntConsumer<? super AnyType> action) {
+            for (int i = 0; i < size; i++)
+                action.accept((AnyType) items[i], hashes[i]);
+        }
+
+        Iterator<AnyType> iterator() {
+            return new Iterator<AnyType>() {
+                private int next;
+
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @SuppressWarnings("unchecked")
+                public AnyType next() {
+                    if (next >= size)
+                        throw new NoSuchElementException();
+                    return (AnyType) items[next++];
+                }
+            };
+        }
+
+        HashBucket<AnyType> resize() {
+            if (size < TREEIFY_THRESHOLD || !sameComparableClass())
+                return this;
+            TreeBucket<AnyType> tree = new TreeBucket<>();
+            forEach(tree::addDistinct);
+            return tree;
+        }
+
+        /*
+        This method returns the position of x in the arrays, or -1, and
+        records how many items it compared.
+         */
+        private int indexOf(Object x, int hash) {
+            for (int i = 0; i < size; i++)
+                if (hashes[i] == hash && x.equals(items[i])) {
+                    lastProbes = i + 1;
+                    return i;
+                }
+            lastProbes = size;
+            return -1;
+        }
+
+        /*
+        This method returns true if every item is Comparable and of the same
+        class, so they can be ordered against each other in a tree.
+         */
+        private boolean sameComparableClass() {
+            Class<?> c = items[0].getClass();
+            if (!Comparable.class.isAssignableFrom(c))
+                return false;
+            for (int i = 1; i < size; i++)
+                if (items[i].getClass() != c)
+                    return false;
+            return true;
+        }
+    }
+
+    /*
+    A chain stored as a red-black tree ordered by hash code and then by
+    compareTo(), so lookups stay O(log n) however long the chain grows.
+    compareTo() is expected to be consistent with equals(); items that
+    compare equal without being equal are kept in a small array on the side.
+     */
+    static final class TreeBucket<AnyType> extends HashBucket<AnyType> {
+        private final TreeMap<Object, TreeEntry<AnyType>> tree = new TreeMap<>(TreeBucket::compare);
+        private Class<?> keyClass;
+        private ArrayBucket<AnyType> ties;
+
+        boolean contains(Object x, int hash) {
+            lastProbes = depth();
+            if (comparable(x)) {
+                TreeEntry<AnyType> found = tree.get(x);
+                if (found != null && found.item.equals(x))
+                    return true;
+            }
+            return ties != null && tiesContain(x, hash);
+        }
+
+        AnyType get(Object x, int hash) {
+            lastProbes = depth();
+            if (comparable(x)) {
+                TreeEntry<AnyType> found = tree.get(x);
+                if (found != null && found.item.equals(x))
+                    return found.item;
+            }
+            if (ties == null)
+                return null;
+            AnyType item = ties.get(x, hash);
+            lastProbes += ties.lastProbes;
+            return item;
+        }
+
+        boolean add(AnyType x, int hash) {
+            if (contains(x, hash))
+                return false;
+            addDistinct(x, hash);
+            return true;
+        }
+
+        void addDistinct(AnyType x, int hash) {
+            if (keyClass == null)
+                keyClass = x.getClass();
+            //Keep the existing item in the tree and put the tie on the side.
+            if (!comparable(x) || tree.putIfAbsent(x, new TreeEntry<>(x, hash)) != null) {
+                if (ties == null)
+                    ties = new ArrayBucket<>();
+                ties.addDistinct(x, hash);
+            }
+        }
+
+        boolean remove(Object x, int hash) {
+            lastProbes = depth();
+            if (comparable(x)) {
+                TreeEntry<AnyType> found = tree.get(x);
+                if (found != null && found.item.equals(x)) {
+                    tree.remove(x);
+                    return true;
+                }
+            }
+            if (ties == null)
+                return false;
+            boolean removed = ties.remove(x, hash);
+            lastProbes += ties.lastProbes;
+            return removed;
+        }
+
+        int size() {
+            return tree.size() + (ties == null ? 0 : ties.size());
+        }
+
+        void forEach(ObjIntConsumer<? super AnyType> action) {
+            for (TreeEntry<AnyType> e : tree.values())
+                action.accept(e.item, e.hash);
+            if (ties != null)
+                ties.forEach(action);
+        }
+
+        Iterator<AnyType> iterator() {
+            //The tree items, then the ties.
+            Iterator<TreeEntry<AnyType>> entries = tree.values().iterator();
+            return new Iterator<AnyType>() {
+                private Iterator<AnyType> tieItems;
+
+                public boolean hasNext() {
+                    if (entries.hasNext())
+                        return true;
+                    if (tieItems == null && ties != null)
+                        tieItems = ties.iterator();
+                    return tieItems != null && tieItems.hasNext();
+                }
+
+                public AnyType next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    return entries.hasNext() ? entries.next().item : tieItems.next();
+                }
+            };
+        }
+
+        HashBucket<AnyType> resize() {
+            if (size() > UNTREEIFY_THRESHOLD)
+                return this;
+            ArrayBucket<AnyType> array = new ArrayBucket<>();
+            forEach(array::addDistinct);
+            return array;
+        }
+
+        /*
+        This method returns the number of nodes a tree search visits at most:
+        about log2(n) + 1 for a red-black tree.
+         */
+        private int depth() {
+            return 32 - Integer.numberOfLeadingZeros(tree.size());
+        }
+
+        /*
+        This method searches the ties, adding the items compared there to the
+        count of the tree search.
+         */
+        private boolean tiesContain(Object x, int hash) {
+            boolean found = ties.contains(x, hash);
+            lastProbes += ties.lastProbes;
+            return found;
+        }
+
+        /*
+        This method returns true if x can be ordered against the tree items.
+         */
+        private boolean comparable(Object x) {
+            return x.getClass() == keyClass;
+        }
+
+        /*
+        This method orders items by hash code and then by compareTo().
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static int compare(Object a, Object b) {
+            int c = Integer.compare(a.hashCode(), b.hashCode());
+            if (c != 0)
+                return c;
+            return ((Comparable) a).compareTo(b);
+        }
+    }
+
+    /*
+    A tree item together with the hash code the table gave it.
+     */
+    private static final class TreeEntry<AnyType> {
+        final AnyType item;
+        final int hash;
+
+        TreeEntry(AnyType item, int hash) {
+            this.item = item;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**********************************************************************
+ * @file HashLookup.java
+ * @brief This program declares the HashLookup interface. It is the
+ * read-only part of the HashTable API: contains and size, a batch
+ * version of contains, and a one-line summary of the table's shape.
+ * HashTable adds the operations that change a table. FrozenHashTable,
+ * which is built once and never changes, implements only this one, so
+ * code handed a frozen table cannot try to change it.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Collection;
+
+// HashLookup interface
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean contains( x )    --> Return true if x is present
+// int size( )              --> Return the number of items
+// int containsAll( items ) --> Count the batch items present
+// String shapeSummary( )   --> Load factor and probe lengths on one line
+
+public interface HashLookup<AnyType> {
+    /**
+     * Find an item in the hash table.
+     *
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    boolean contains(AnyType x);
+
+    /**
+     * Return the number of items in the hash table.
+     *
+     * @return the number of items.
+     */
+    int size();
+
+    /**
+     * Return the current shape of the table on one line: its load factor
+     * and how many items a lookup compares or slots it visits.
+     *
+     * @return the table shape.
+     */
+    String shapeSummary();
+
+    /**
+     * Count how many items of a batch are in the hash table.
+     *
+     * @param items the items to search for.
+     * @return the number of items found.
+     */
+    default int containsAll(Collection<? extends AnyType> items) {
+        int found = 0;
+        for (AnyType x : items) {
+            if (contains(x))
+                found++;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,184 @@
+/**********************************************************************
+ * @file HashStrategy.java
+ * @brief This program declares the HashStrategy interface. A strategy
+ * decides how SeparateChainingHashTable turns an item into a bucket
+ * number: the hash it stores for the item, the table sizes it allows,
+ * and how a stored hash is reduced to an index. Three strategies are
+ * built in: the original hashCode() modulo a prime table size, a
+ * Murmur3-style finalizer over power-of-two tables indexed with a
+ * mask, and the same finalizer keyed with a random seed.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.security.SecureRandom;
+
+// HashStrategy interface
+//
+// ******************PUBLIC OPERATIONS*********************
+// int hash( x )                 --> The hash stored for x
+// int tableSize( minimum )      --> A legal table size of at least minimum
+// int index( hash, tableSize )  --> The bucket for a stored hash
+// HashStrategy modPrime( )      --> hashCode() modulo a prime, the default
+// HashStrategy mixPowerOfTwo( ) --> Mixed hash masked to a power of two
+// HashStrategy seeded( )        --> Mixed with a random seed
+
+public interface HashStrategy {
+    /**
+     * Return the hash the table stores for x and compares before calling
+     * equals(). Equal items must get equal hashes.
+     *
+     * @param x the item.
+     * @return the hash.
+     */
+    int hash(Object x);
+
+    /**
+     * Return the smallest table size this strategy can index that is at
+     * least minimum.
+     *
+     * @param minimum the smallest acceptable size (must be positive).
+     * @return the table size.
+     */
+    int tableSize(int minimum);
+
+    /**
+     * Return the bucket of a stored hash.
+     *
+     * @param hash      a value returned by hash().
+     * @param tableSize a value returned by tableSize().
+     * @return the bucket number, in [0, tableSize).
+     */
+    int index(int hash, int tableSize);
+
+    /**
+     * Return the original strategy: hashCode() as it is, reduced modulo a
+     * prime table size. A prime spreads hash codes that share a factor
+     * but costs an integer division per operation.
+     *
+     * @return the strategy.
+     */
+    static HashStrategy modPrime() {
+        return ModPrime.INSTANCE;
+    }
+
+    /**
+     * Return a strategy that runs hashCode() through the Murmur3 64-bit
+     * finalizer, folds the result to 32 bits and keeps the low bits with
+     * a mask. Every input bit
+     * affects the low bits, so power-of-two sizes are safe and the
+     * division is replaced by an AND.
+     *
+     * @return the strategy.
+     */
+    static HashStrategy mixPowerOfTwo() {
+        return new Mixed(0);
+    }
+
+    /**
+     * Return a mixing strategy keyed with a random seed. An attacker who
+     * does not know the seed cannot pick hash codes that land in one
+     * bucket. Items with equal hashCode() values still share a bucket;
+     * the table turns such chains into trees when it can.
+     *
+     * @return the strategy.
+     */
+    static HashStrategy seeded() {
+        return seeded(new SecureRandom().nextLong());
+    }
+
+    /**
+     * Return a mixing strategy keyed with the given seed.
+     *
+     * @param seed the seed.
+     * @return the strategy.
+     */
+    static HashStrategy seeded(long seed) {
+        return new Mixed(seed);
+    }
+
+    /**
+     * hashCode() modulo a prime table size.
+     */
+    final class ModPrime implements HashStrategy {
+        static final ModPrime INSTANCE = new ModPrime();
+
+        private ModPrime() {
+        }
+
+        public int hash(Object x) {
+            return x.hashCode();
+        }
+
+        public int tableSize(int minimum) {
+            return SeparateChainingHashTable.nextPrime(minimum);
+        }
+
+        public int index(int hash, int tableSize) {
+            int hashVal = hash % tableSize;
+            if (hashVal < 0)
+                hashVal += tableSize;
+            return hashVal;
+        }
+
+        public String toString() {
+            return "modPrime";
+        }
+    }
+
+    /**
+     * A seeded Murmur3 64-bit finalizer over power-of-two tables. A seed
+     * of 0 is the plain finalizer.
+     */
+    final class Mixed implements HashStrategy {
+        private final long seed;
+
+        private Mixed(long seed) {
+            this.seed = seed;
+        }
+
+        /**
+         * Return the seed, which a saved table needs to be indexed again.
+         *
+         * @return the seed.
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        public int hash(Object x) {
+            //fmix64 over the hash code and the seed, folded to 32 bits.
+            long h = fmix64((x.hashCode() & 0xFFFFFFFFL) ^ seed);
+            return (int) (h ^ (h >>> 32));
+        }
+
+        public int tableSize(int minimum) {
+            if (minimum > MAX_POWER_OF_TWO)
+                return MAX_POWER_OF_TWO;
+            return Math.max(2, Integer.highestOneBit(minimum - 1) << 1);
+        }
+
+        public int index(int hash, int tableSize) {
+            return hash & (tableSize - 1);
+        }
+
+        public String toString() {
+            return seed == 0 ? "mixPowerOfTwo" : "seeded";
+        }
+
+        /*
+        This method is the Murmur3 64-bit finalizer, fmix64: it spreads every
+        input bit over the whole result. FrozenHashTable and BlockedBloomFilter
+        use it as well.
+         */
+        static long fmix64(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            return h ^ (h >>> 33);
+        }
+
+        private static final int MAX_POWER_OF_TWO = 1 << 30;
+    }
+}
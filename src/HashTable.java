@@ -0,0 +1,156 @@
+/**********************************************************************
+ * @file HashTable.java
+ * @brief This program declares the HashTable interface. It is the set
+ * API the hash tables of this project share: insert, remove, contains,
+ * makeEmpty and size, plus batch versions of the first three and a
+ * one-line summary of how full the table is and how far lookups probe.
+ * The read-only operations come from HashLookup.
+ * Three engines implement it: separate chaining, Robin Hood linear
+ * probing and bucketized cuckoo hashing. Engine picks one by name.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Collection;
+
+// HashTable interface
+//
+// ******************PUBLIC OPERATIONS*********************
+// void insert( x )         --> Insert x
+// void remove( x )         --> Remove x
+// boolean contains( x )    --> Return true if x is present
+// void makeEmpty( )        --> Remove all items
+// int size( )              --> Return the number of items
+// int insertAll( items )   --> Insert a batch
+// int containsAll( items ) --> Count the batch items present
+// int removeAll( items )   --> Remove a batch
+// String shapeSummary( )   --> Load factor and probe lengths on one line
+//
+// No engine accepts null items.
+
+public interface HashTable<AnyType> extends HashLookup<AnyType> {
+    /**
+     * Insert into the hash table. If the item is already present, then
+     * do nothing.
+     *
+     * @param x the item to insert.
+     */
+    void insert(AnyType x);
+
+    /**
+     * Remove from the hash table.
+     *
+     * @param x the item to remove.
+     */
+    void remove(AnyType x);
+
+    /**
+     * Make the hash table logically empty.
+     */
+    void makeEmpty();
+
+    /**
+     * Insert a batch into the hash table.
+     *
+     * @param items the items to insert.
+     * @return the number of items added.
+     */
+    default int insertAll(Collection<? extends AnyType> items) {
+        int before = size();
+        for (AnyType x : items)
+            insert(x);
+        return size() - before;
+    }
+
+    /**
+     * Remove a batch from the hash table.
+     *
+     * @param items the items to remove.
+     * @return the number of items removed.
+     */
+    default int removeAll(Collection<? extends AnyType> items) {
+        int before = size();
+        for (AnyType x : items)
+            remove(x);
+        return before - size();
+    }
+
+    /**
+     * The engines that implement HashTable.
+     */
+    enum Engine {
+        /**
+         * SeparateChainingHashTable: a chain of items per bucket.
+         */
+        CHAINING,
+        /**
+         * RobinHoodHashTable: linear probing in one flat array, where an
+         * item far from its home slot takes the place of one nearer to
+         * its own.
+         */
+        ROBIN_HOOD,
+        /**
+         * CuckooHashTable: every item lives in one of two small buckets,
+         * so a lookup reads at most two buckets and a tiny stash.
+         */
+        CUCKOO;
+
+        /**
+         * Construct an empty table of this engine with its default
+         * maximum load factor.
+         *
+         * @param size approximate number of items the table should hold.
+         * @return the table.
+         */
+        public <AnyType> HashTable<AnyType> create(int size) {
+            switch (this) {
+                case ROBIN_HOOD:
+                    return new RobinHoodHashTable<>(size);
+                case CUCKOO:
+                    return new CuckooHashTable<>(size);
+                default:
+                    return new SeparateChainingHashTable<>(size);
+            }
+        }
+
+        /**
+         * Construct an empty table of this engine that grows once its
+         * load factor would go above maxLoadFactor. The chaining table
+         * counts items per bucket and takes any positive value; the open
+         * addressing engines count items per slot and need a value below
+         * 1.
+         *
+         * @param size          approximate number of items the table
+         *                      should hold.
+         * @param maxLoadFactor the load factor the table grows at.
+         * @return the table.
+         */
+        public <AnyType> HashTable<AnyType> create(int size, double maxLoadFactor) {
+            switch (this) {
+                case ROBIN_HOOD:
+                    return new RobinHoodHashTable<>(size, maxLoadFactor);
+                case CUCKOO:
+                    return new CuckooHashTable<>(size, maxLoadFactor);
+                default:
+                    return new SeparateChainingHashTable<>(size, maxLoadFactor, 0);
+            }
+        }
+
+        /**
+         * Return the engine with the given name, ignoring case, dashes
+         * and underscores, so "robinhood" and "robin-hood" both work.
+         *
+         * @param name the engine name.
+         * @return the engine.
+         * @throws IllegalArgumentException if no engine has the name.
+         */
+        public static Engine forName(String name) {
+            String key = name.replace("-", "").replace("_", "");
+            for (Engine engine : values()) {
+                if (engine.name().replace("_", "").equalsIgnoreCase(key))
+                    return engine;
+            }
+            throw new IllegalArgumentException("Unknown hash table engine " + name);
+        }
+    }
+}
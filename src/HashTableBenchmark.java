@@ -0,0 +1,248 @@
+/**********************************************************************
+ * @file HashTableBenchmark.java
+ * @brief This program benchmarks SeparateChainingHashTable insert,
+ * contains and remove on the volcano dataset. Each combination of
+ * dataset size and input order (sorted, shuffled, reversed) runs in
+ * its own forked JVMs with warmup iterations before the measured ones,
+ * and results are reported as ns/op with a 99.9% confidence interval.
+ * With -prof gc it also reports bytes allocated per operation and the
+ * garbage collections seen during measurement.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class HashTableBenchmark {
+    /**
+     * The order the dataset is fed to the table in.
+     */
+    enum Order { SORTED, SHUFFLED, REVERSED }
+
+    /**
+     * The operation being measured.
+     */
+    enum Operation { INSERT, CONTAINS, REMOVE }
+
+    // Usage: java HashTableBenchmark <input file> [-f forks] [-wi warmup iterations]
+    //        [-i iterations] [-r iteration ms] [-sizes 100,400,1566]
+    //        [-orders SORTED,SHUFFLED,REVERSED] [-ops INSERT,CONTAINS,REMOVE] [-prof gc]
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 1 && args[0].equals(WORKER_FLAG)) {
+            runWorker(args);
+            return;
+        }
+        if (args.length < 1) {
+            System.err.println("Usage: java HashTableBenchmark <input file> [-f forks] [-wi warmup iterations]"
+                    + " [-i iterations] [-r iteration ms] [-sizes 100,400,1566]"
+                    + " [-orders SORTED,SHUFFLED,REVERSED] [-ops INSERT,CONTAINS,REMOVE] [-prof gc]");
+            System.exit(1);
+        }
+
+        String inputFileName = args[0];
+        int forks = 2, warmups = 5, iterations = 5, iterationMillis = 200;
+        String sizes = "100,400,1566";
+        String orders = "SORTED,SHUFFLED,REVERSED";
+        String ops = "INSERT,CONTAINS,REMOVE";
+        boolean gc = false;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-f": forks = Integer.parseInt(args[i + 1]); break;
+                case "-wi": warmups = Integer.parseInt(args[i + 1]); break;
+                case "-i": iterations = Integer.parseInt(args[i + 1]); break;
+                case "-r": iterationMillis = Integer.parseInt(args[i + 1]); break;
+                case "-sizes": sizes = args[i + 1]; break;
+                case "-orders": orders = args[i + 1]; break;
+                case "-ops": ops = args[i + 1]; break;
+                case "-prof": gc = args[i + 1].equals("gc"); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        System.out.printf("%-14s %6s %9s %4s %12s %12s  %s%n", "Benchmark", "(size)", "(order)", "Cnt", "Score", "Error", "Units");
+        for (String op : ops.split(","))
+            for (String size : sizes.split(","))
+                for (String order : orders.split(","))
+                    runForks(inputFileName, Operation.valueOf(op), Integer.parseInt(size), Order.valueOf(order),
+                            forks, warmups, iterations, iterationMillis, gc);
+    }
+
+    // Runs one benchmark in fresh JVMs and prints the combined measured iterations.
+    private static void runForks(String inputFileName, Operation op, int size, Order order, int forks,
+                                 int warmups, int iterations, int iterationMillis, boolean gc) throws Exception {
+        List<Double> scores = new ArrayList<>();
+        List<Double> alloc = new ArrayList<>();
+        long gcCount = 0, gcTime = 0;
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (int f = 0; f < forks; f++) {
+            Process p = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    HashTableBenchmark.class.getName(), WORKER_FLAG, inputFileName, op.name(), String.valueOf(size),
+                    order.name(), String.valueOf(warmups), String.valueOf(iterations), String.valueOf(iterationMillis))
+                    .redirectErrorStream(true).start();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] parts = line.split(" ");
+                    switch (parts[0]) {
+                        case "SCORE": scores.add(Double.parseDouble(parts[1])); break;
+                        case "ALLOC": alloc.add(Double.parseDouble(parts[1])); break;
+                        case "GC": gcCount += Long.parseLong(parts[1]); gcTime += Long.parseLong(parts[2]); break;
+                        default: System.out.println(line);
+                    }
+                }
+            }
+            if (p.waitFor() != 0)
+                throw new IOException("Fork exited with status " + p.exitValue());
+        }
+        String name = op.name().toLowerCase();
+        printRow(name, size, order, scores, "ns/op");
+        if (gc) {
+            printRow(name + ":alloc", size, order, alloc, "B/op");
+            System.out.printf("%-14s %6d %9s %4d %12d %12s  %s%n", name + ":gc", size, order, forks, gcCount, "", "counts");
+            System.out.printf("%-14s %6d %9s %4d %12d %12s  %s%n", name + ":gc", size, order, forks, gcTime, "", "ms");
+        }
+    }
+
+    // Prints the mean of the samples and the half-width of its 99.9% confidence interval.
+    private static void printRow(String name, int size, Order order, List<Double> samples, String units) {
+        int n = samples.size();
+        double mean = 0;
+        for (double s : samples)
+            mean += s;
+        mean /= n;
+        double var = 0;
+        for (double s : samples)
+            var += (s - mean) * (s - mean);
+        double error = n > 1 ? studentT999(n - 1) * Math.sqrt(var / (n - 1)) / Math.sqrt(n) : Double.NaN;
+        System.out.printf("%-14s %6d %9s %4d %12.3f %s %10.3f  %s%n", name, size, order, n, mean, "+-", error, units);
+    }
+
+    // Returns the two-sided 99.9% quantile of Student's t distribution.
+    private static double studentT999(int df) {
+        final double[] TABLE = {636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59,
+                4.44, 4.32, 4.22, 4.14, 4.07, 4.01, 3.97, 3.92, 3.88, 3.85,
+                3.82, 3.79, 3.77, 3.75, 3.73, 3.71, 3.69, 3.67, 3.66, 3.65};
+        if (df <= TABLE.length)
+            return TABLE[df - 1];
+        if (df <= 40)
+            return 3.55;
+        if (df <= 60)
+            return 3.46;
+        if (df <= 120)
+            return 3.37;
+        return 3.29;
+    }
+
+    // Runs inside a fork: warms up, then prints one SCORE line (and with the
+    // allocation counters, one ALLOC line) per measured iteration.
+    private static void runWorker(String[] args) throws IOException {
+        String inputFileName = args[1];
+        Operation op = Operation.valueOf(args[2]);
+        int size = Integer.parseInt(args[3]);
+        Order order = Order.valueOf(args[4]);
+        int warmups = Integer.parseInt(args[5]);
+        int iterations = Integer.parseInt(args[6]);
+        long iterationNanos = Long.parseLong(args[7]) * 1000000L;
+
+        ArrayList<Volcano> data = MappedCsvLoader.load(inputFileName, size);
+        if (order == Order.SORTED)
+            Collections.sort(data);
+        else if (order == Order.SHUFFLED)
+            Collections.shuffle(data, new Random(42));
+        else
+            Collections.sort(data, Collections.reverseOrder());
+        Volcano[] items = data.toArray(new Volcano[0]);
+
+        for (int i = 0; i < warmups; i++)
+            iteration(op, items, iterationNanos);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long gcCount = gcCount(), gcTime = gcTime();
+        for (int i = 0; i < iterations; i++) {
+            long allocBefore = threads.getThreadAllocatedBytes(tid);
+            long[] result = iteration(op, items, iterationNanos);
+            long allocated = threads.getThreadAllocatedBytes(tid) - allocBefore - result[2];
+            System.out.println("SCORE " + (double) result[0] / result[1]);
+            System.out.println("ALLOC " + (double) allocated / result[1]);
+        }
+        System.out.println("GC " + (gcCount() - gcCount) + " " + (gcTime() - gcTime));
+        //Print the sink so the measured results are always used.
+        if (sink == 42)
+            System.err.println();
+    }
+
+    // Repeats the operation over every item until the iteration time is used up.
+    // Only the operation loop is timed; building the table it needs is not.
+    // Returns the timed nanoseconds, the operation count and the bytes allocated
+    // by the untimed setup.
+    private static long[] iteration(Operation op, Volcano[] items, long iterationNanos) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long timed = 0, ops = 0, setupAlloc = 0;
+        long end = System.nanoTime() + iterationNanos;
+        while (System.nanoTime() < end) {
+            long setupStart = threads.getThreadAllocatedBytes(tid);
+            SeparateChainingHashTable<Volcano> table = new SeparateChainingHashTable<>();
+            if (op != Operation.INSERT)
+                for (Volcano v : items)
+                    table.insert(v);
+            setupAlloc += threads.getThreadAllocatedBytes(tid) - setupStart;
+
+            long start = System.nanoTime();
+            switch (op) {
+                case INSERT:
+                    for (Volcano v : items)
+                        table.insert(v);
+                    break;
+                case CONTAINS:
+                    int found = 0;
+                    for (Volcano v : items)
+                        if (table.contains(v))
+                            found++;
+                    sink += found;
+                    break;
+                default:
+                    for (Volcano v : items)
+                        table.remove(v);
+            }
+            timed += System.nanoTime() - start;
+            ops += items.length;
+            escaped = table;
+        }
+        return new long[]{timed, ops, setupAlloc};
+    }
+
+    private static long gcCount() {
+        long n = 0;
+        for (GarbageCollectorMXBean b : ManagementFactory.getGarbageCollectorMXBeans())
+            n += Math.max(0, b.getCollectionCount());
+        return n;
+    }
+
+    private static long gcTime() {
+        long t = 0;
+        for (GarbageCollectorMXBean b : ManagementFactory.getGarbageCollectorMXBeans())
+            t += Math.max(0, b.getCollectionTime());
+        return t;
+    }
+
+    private static final String WORKER_FLAG = "--worker";
+
+    /**
+     * Results are added here so the JIT cannot drop the measured loop.
+     */
+    private static volatile long sink;
+    private static volatile Object escaped;
+}
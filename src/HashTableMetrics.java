@@ -0,0 +1,190 @@
+/**********************************************************************
+ * @file HashTableMetrics.java
+ * @brief This program implements the HashTableMetrics class. It holds
+ * the counters a SeparateChainingHashTable keeps once its metrics are
+ * enabled: operation counts, the items compared by each kind of
+ * operation, and the number and duration of rehashes. The chain-length
+ * histogram and load factor are read from the table when asked for.
+ * The metrics can be registered as a JMX MBean.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// HashTableMetrics class
+//
+// CONSTRUCTION: through SeparateChainingHashTable.enableMetrics( )
+//
+// ******************PUBLIC OPERATIONS*********************
+// long getInsertCount( ) ...         --> Operation counts
+// long getInsertProbes( ) ...        --> Items compared per kind of operation
+// long[] getChainLengthHistogram( )  --> Buckets per chain length
+// int getMaxChainLength( )           --> Longest chain
+// double getLoadFactor( )            --> Items per bucket
+// String chainSummary( )             --> Load factor and chains on one line
+// long getRehashCount( )             --> Rehashes started
+// long getRehashTimeNanos( )         --> Time spent rehashing
+// void reset( )                      --> Zero every counter
+// ObjectName register( name )        --> Publish through JMX
+//
+// The counters are updated by the thread using the table and are not
+// synchronized, so a JMX client sees recent but not exact values.
+
+public class HashTableMetrics implements HashTableMetricsMBean {
+    HashTableMetrics(SeparateChainingHashTable<?> table) {
+        this.table = table;
+    }
+
+    public long getInsertCount() {
+        return inserts;
+    }
+
+    public long getContainsCount() {
+        return containsCalls;
+    }
+
+    public long getRemoveCount() {
+        return removes;
+    }
+
+    public long getInsertProbes() {
+        return insertProbes;
+    }
+
+    public long getContainsProbes() {
+        return containsProbes;
+    }
+
+    public long getRemoveProbes() {
+        return removeProbes;
+    }
+
+    public double getProbesPerOperation() {
+        long ops = inserts + containsCalls + removes;
+        return ops == 0 ? 0 : (double) (insertProbes + containsProbes + removeProbes) / ops;
+    }
+
+    public long[] getChainLengthHistogram() {
+        long[][] histogram = {new long[8]};
+        table.forEachChainLength(length -> {
+            if (length >= histogram[0].length)
+                histogram[0] = Arrays.copyOf(histogram[0], Math.max(length + 1, histogram[0].length * 2));
+            histogram[0][length]++;
+        });
+        int max = lastNonZero(histogram[0]);
+        return Arrays.copyOf(histogram[0], max + 1);
+    }
+
+    public int getMaxChainLength() {
+        int[] max = new int[1];
+        table.forEachChainLength(length -> max[0] = Math.max(max[0], length));
+        return max[0];
+    }
+
+    public double getLoadFactor() {
+        return (double) getSize() / getBucketCount();
+    }
+
+    public int getSize() {
+        return table.size();
+    }
+
+    public int getBucketCount() {
+        return table.capacity();
+    }
+
+    public long getRehashCount() {
+        return rehashes;
+    }
+
+    public long getRehashTimeNanos() {
+        return rehashNanos;
+    }
+
+    public void reset() {
+        inserts = containsCalls = removes = 0;
+        insertProbes = containsProbes = removeProbes = 0;
+        rehashes = rehashNanos = 0;
+    }
+
+    /**
+     * Register these metrics with the platform MBean server.
+     *
+     * @param name the value of the name key in the object name.
+     * @return the object name the metrics were registered under.
+     * @throws JMException if the name is taken or invalid.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=HashTableMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Return the counters on one line.
+     *
+     * @return the counters.
+     */
+    public String toString() {
+        return "Inserts=" + inserts + ", Contains=" + containsCalls + ", Removes=" + removes
+                + ", Insert Probes=" + insertProbes + ", Contains Probes=" + containsProbes
+                + ", Remove Probes=" + removeProbes + ", Rehashes=" + rehashes
+                + ", Rehash Time(ns)=" + rehashNanos;
+    }
+
+    /**
+     * Return the current shape of the table on one line: its load factor,
+     * longest chain and chain-length histogram.
+     *
+     * @return the table shape.
+     */
+    public String chainSummary() {
+        long[] histogram = getChainLengthHistogram();
+        return "Load Factor=" + String.format("%.3f", getLoadFactor()) + ", Max Chain=" + (histogram.length - 1)
+                + ", Chain Lengths=" + Arrays.toString(histogram);
+    }
+
+    /*
+    These methods are called by the table.
+     */
+    void recordInsert(int probes) {
+        inserts++;
+        insertProbes += probes;
+    }
+
+    void recordContains(int probes) {
+        containsCalls++;
+        containsProbes += probes;
+    }
+
+    void recordRemove(int probes) {
+        removes++;
+        removeProbes += probes;
+    }
+
+    void recordRehash() {
+        rehashes++;
+    }
+
+    void recordRehashTime(long nanos) {
+        rehashNanos += nanos;
+    }
+
+    private static int lastNonZero(long[] histogram) {
+        for (int i = histogram.length - 1; i > 0; i--)
+            if (histogram[i] != 0)
+                return i;
+        return 0;
+    }
+
+    private static final String JMX_DOMAIN = "Proj4";
+
+    private final SeparateChainingHashTable<?> table;
+    private long inserts, containsCalls, removes;
+    private long insertProbes, containsProbes, removeProbes;
+    private long rehashes, rehashNanos;
+}
@@ -0,0 +1,85 @@
+/**********************************************************************
+ * @file HashTableMetricsMBean.java
+ * @brief This program declares the HashTableMetricsMBean interface, the
+ * JMX management interface of HashTableMetrics. Every getter becomes a
+ * read-only attribute and reset() becomes an operation.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+public interface HashTableMetricsMBean {
+    /**
+     * @return the number of insert calls.
+     */
+    long getInsertCount();
+
+    /**
+     * @return the number of contains calls.
+     */
+    long getContainsCount();
+
+    /**
+     * @return the number of remove calls.
+     */
+    long getRemoveCount();
+
+    /**
+     * @return the items compared by all insert calls.
+     */
+    long getInsertProbes();
+
+    /**
+     * @return the items compared by all contains calls.
+     */
+    long getContainsProbes();
+
+    /**
+     * @return the items compared by all remove calls.
+     */
+    long getRemoveProbes();
+
+    /**
+     * @return the items compared per operation, over all operations.
+     */
+    double getProbesPerOperation();
+
+    /**
+     * @return entry n is the number of buckets holding n items.
+     */
+    long[] getChainLengthHistogram();
+
+    /**
+     * @return the length of the longest chain.
+     */
+    int getMaxChainLength();
+
+    /**
+     * @return items per bucket.
+     */
+    double getLoadFactor();
+
+    /**
+     * @return the number of items in the table.
+     */
+    int getSize();
+
+    /**
+     * @return the number of buckets in the table.
+     */
+    int getBucketCount();
+
+    /**
+     * @return the number of rehashes started.
+     */
+    long getRehashCount();
+
+    /**
+     * @return the time spent rehashing, in nanoseconds.
+     */
+    long getRehashTimeNanos();
+
+    /**
+     * Set every counter back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,227 @@
+/**********************************************************************
+ * @file IntHashSet.java
+ * @brief This program implements the IntHashSet class. It implements a
+ * set of primitive int keys using open addressing with linear probing
+ * over a flat int array. Deleted slots are closed with backward-shift
+ * deletion, so no tombstones are ever left behind.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Arrays;
+
+// IntHashSet class
+//
+// CONSTRUCTION: an approximate initial size or default of 101
+//
+// ******************PUBLIC OPERATIONS*********************
+// void insert( x )       --> Insert x
+// void remove( x )       --> Remove x
+// boolean contains( x )  --> Return true if x is present
+// void makeEmpty( )      --> Remove all items
+// int size( )            --> Return the number of items
+//
+// The table stops at 2^30 slots, so a set holds at most 2^29 keys.
+
+public class IntHashSet {
+    /**
+     * Construct the hash set.
+     */
+    public IntHashSet() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Construct the hash set.
+     *
+     * @param size approximate number of items the set should hold
+     *             before it has to grow.
+     * @throws IllegalArgumentException if size is above the 2^29 keys
+     *                                  a set can hold.
+     */
+    public IntHashSet(int size) {
+        allocate(tableSizeFor(size));
+    }
+
+    /**
+     * Insert into the hash set. If the item is
+     * already present, then do nothing. Grow the table if
+     * the insertion exceeds the maximum load.
+     *
+     * @param x the item to insert.
+     * @throws IllegalStateException if the set already holds 2^29 keys.
+     */
+    public void insert(int x) {
+        //The empty marker cannot live in the array, so track it with a flag.
+        if (x == EMPTY) {
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                currentSize++;
+            }
+            return;
+        }
+        //Probe until the key or a free slot is found.
+        int i = myhash(x);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == x)
+                return;
+            i = (i + 1) & mask;
+        }
+        //A full table of the largest size cannot grow, so refuse x before storing it.
+        if (occupied >= maxFill && keys.length == MAX_TABLE_SIZE)
+            throw new IllegalStateException("IntHashSet cannot hold more than " + MAX_ITEMS + " keys");
+        keys[i] = x;
+        occupied++;
+        currentSize++;
+        //Grow if the insertion exceeds the maximum load.
+        if (occupied > maxFill)
+            rehash();
+    }
+
+    /**
+     * Remove from the hash set.
+     *
+     * @param x the item to remove.
+     */
+    public void remove(int x) {
+        if (x == EMPTY) {
+            if (hasEmptyKey) {
+                hasEmptyKey = false;
+                currentSize--;
+            }
+            return;
+        }
+        //Find the slot holding x.
+        int i = myhash(x);
+        while (keys[i] != x) {
+            if (keys[i] == EMPTY)
+                return;
+            i = (i + 1) & mask;
+        }
+        //Shift the following cluster back so that no probe sequence is broken.
+        int gap = i;
+        int j = (i + 1) & mask;
+        while (keys[j] != EMPTY) {
+            int home = myhash(keys[j]);
+            //Move keys[j] into the gap if its home slot is not between the gap and j.
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        occupied--;
+        currentSize--;
+    }
+
+    /**
+     * Find an item in the hash set.
+     *
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    public boolean contains(int x) {
+        if (x == EMPTY)
+            return hasEmptyKey;
+        //Probe until the key or a free slot is found.
+        int i = myhash(x);
+        int k;
+        while ((k = keys[i]) != EMPTY) {
+            if (k == x)
+                return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Make the hash set logically empty.
+     */
+    public void makeEmpty() {
+        Arrays.fill(keys, EMPTY);
+        hasEmptyKey = false;
+        occupied = 0;
+        currentSize = 0;
+    }
+
+    /**
+     * Return the number of items in the hash set.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return currentSize;
+    }
+
+    /*
+    This method doubles the table size and re-inserts every key from the old
+    array directly into the new one. The keys are already known to be distinct,
+    so no equality checks are needed.
+     */
+    private void rehash() {
+        int[] oldKeys = keys;
+        allocate(keys.length * 2);
+        for (int k : oldKeys) {
+            if (k != EMPTY) {
+                int i = myhash(k);
+                while (keys[i] != EMPTY)
+                    i = (i + 1) & mask;
+                keys[i] = k;
+            }
+        }
+    }
+
+    /*
+    This method creates an empty key array of the given power-of-two length.
+     */
+    private void allocate(int length) {
+        keys = new int[length];
+        mask = length - 1;
+        maxFill = (int) (length * MAX_LOAD);
+    }
+
+    /*
+    This method mixes the bits of x so that sequential keys spread over the
+    whole table, then masks the result down to a slot index.
+     */
+    private int myhash(int x) {
+        int h = x * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Internal method to find the smallest power-of-two table length that
+     * can hold n items without exceeding the maximum load.
+     *
+     * @param n the number of items.
+     * @return a power of two.
+     */
+    private static int tableSizeFor(int n) {
+        if (n > MAX_ITEMS)
+            throw new IllegalArgumentException("IntHashSet cannot hold more than " + MAX_ITEMS + " keys: " + n);
+        int length = 2;
+        while (length * MAX_LOAD < n)
+            length <<= 1;
+        return length;
+    }
+
+    private static final int DEFAULT_TABLE_SIZE = 101;
+    private static final double MAX_LOAD = 0.5;
+    /**
+     * The largest table: the largest power-of-two int array length.
+     */
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+    private static final int MAX_ITEMS = (int) (MAX_TABLE_SIZE * MAX_LOAD);
+    private static final int EMPTY = 0;
+
+    /**
+     * The flat array of keys.
+     */
+    private int[] keys;
+    private int mask;
+    private int maxFill;
+    private int occupied;
+    private int currentSize;
+    private boolean hasEmptyKey;
+}
@@ -0,0 +1,393 @@
+/**********************************************************************
+ * @file MappedCsvLoader.java
+ * @brief This program implements the MappedCsvLoader class. It loads
+ * the volcano CSV by memory-mapping the file and tokenizing the bytes
+ * in a single pass. Quoted fields follow RFC 4180, so a name such as
+ * "Diables, Morne aux" keeps its comma and loses its quotes, and a
+ * doubled quote inside a quoted field stands for one quote. Latitude,
+ * longitude and elevation are parsed straight from the bytes without
+ * building a String first. Region, country, location, type, status and
+ * last known eruption are interned through a StringDictionary, so each
+ * distinct value is one String however many rows repeat it. Files
+ * larger than one mapping are read in consecutive windows.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+public class MappedCsvLoader {
+    // Usage: java MappedCsvLoader <input file> [number of lines]
+    // Loads the file with Proj4's Scanner reader and with this loader, and
+    // prints the time and bytes allocated by each.
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java MappedCsvLoader <input file> [number of lines]");
+            System.exit(1);
+        }
+        int numLines = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+
+        //Run each loader a few times so the later rounds show warmed-up code.
+        for (int round = 1; round <= 3; round++) {
+            long alloc = allocatedBytes();
+            long start = System.nanoTime();
+            int rows = Proj4.readVolcanoes(args[0], numLines).size();
+            long time = System.nanoTime() - start;
+            alloc = allocatedBytes() - alloc;
+            System.out.println("Round " + round + ": Scanner loader: Rows=" + rows + ", Load Time(ns)=" + time
+                    + ", Allocated(bytes)=" + alloc);
+
+            alloc = allocatedBytes();
+            start = System.nanoTime();
+            rows = load(args[0], numLines).size();
+            time = System.nanoTime() - start;
+            alloc = allocatedBytes() - alloc;
+            System.out.println("Round " + round + ": Mapped loader:  Rows=" + rows + ", Load Time(ns)=" + time
+                    + ", Allocated(bytes)=" + alloc);
+        }
+    }
+
+    /**
+     * Load up to maxRows volcanoes from a CSV file, skipping the header line.
+     *
+     * @param fileName the CSV file.
+     * @param maxRows  the most records to read.
+     * @return the volcanoes in file order.
+     * @throws IOException if the file cannot be read or a row is malformed.
+     */
+    public static ArrayList<Volcano> load(String fileName, int maxRows) throws IOException {
+        ArrayList<Volcano> result = new ArrayList<>();
+        load(fileName, maxRows, result::add);
+        return result;
+    }
+
+    /**
+     * Stream up to maxRows volcanoes from a CSV file to sink, skipping the
+     * header line.
+     *
+     * @param fileName the CSV file.
+     * @param maxRows  the most records to read.
+     * @param sink     receives each volcano in file order.
+     * @return the number of volcanoes read.
+     * @throws IOException if the file cannot be read or a row is malformed.
+     */
+    public static long load(String fileName, long maxRows, Consumer<Volcano> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            Tokenizer tokenizer = new Tokenizer();
+            long rows = 0;
+            boolean headerSkipped = false;
+            //Map one window at a time; a row cut off by the end of a window
+            //is parsed again at the start of the next one.
+            for (long windowStart = 0; windowStart < fileSize && rows < maxRows; ) {
+                int length = (int) Math.min(WINDOW_SIZE, fileSize - windowStart);
+                boolean lastWindow = windowStart + length == fileSize;
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                int pos = 0;
+                if (!headerSkipped) {
+                    pos = tokenizer.skipLine(buf, 0, length);
+                    if (pos < 0)
+                        return 0;
+                    headerSkipped = true;
+                }
+                while (rows < maxRows && pos < length) {
+                    int next = tokenizer.parseRow(buf, pos, length, lastWindow);
+                    if (next < 0)
+                        break;
+                    if (tokenizer.blank) {
+                        pos = next;
+                        continue;
+                    }
+                    sink.accept(tokenizer.toVolcano(windowStart + pos));
+                    rows++;
+                    pos = next;
+                }
+                if (pos == 0 && !lastWindow)
+                    throw new IOException("Row at byte " + windowStart + " is longer than " + WINDOW_SIZE + " bytes");
+                windowStart += pos;
+                if (lastWindow)
+                    break;
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Return the bytes the current thread has allocated so far.
+     *
+     * @return the allocated bytes.
+     */
+    static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /*
+    A single-pass RFC 4180 tokenizer for the eleven volcano columns. It keeps
+    the bounds of the fields of the last row parsed and reuses one scratch
+    array for decoding strings, so a tokenizer belongs to one thread. The
+    repeating text columns are interned through a dictionary, which is not
+    locked, so the tokenizers of a parallel load each need their own.
+     */
+    static final class Tokenizer {
+        Tokenizer() {
+            this(new StringDictionary());
+        }
+
+        Tokenizer(StringDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        private final StringDictionary dictionary;
+        private final int[] start = new int[COLUMNS];
+        private final int[] end = new int[COLUMNS];
+        private final boolean[] escaped = new boolean[COLUMNS];
+        private int columns;
+        private ByteBuffer buf;
+        private byte[] scratch = new byte[256];
+        private boolean ascii;
+
+        /**
+         * True if the last row parsed was an empty line.
+         */
+        boolean blank;
+
+        /**
+         * Return the position after the line starting at pos, or -1 if the
+         * line does not end before limit.
+         */
+        int skipLine(ByteBuffer buf, int pos, int limit) {
+            for (int i = pos; i < limit; i++)
+                if (buf.get(i) == '\n')
+                    return i + 1;
+            return -1;
+        }
+
+        /**
+         * Parse the row starting at pos and return the position of the next
+         * row. Returns -1 if the row does not end before limit, unless atEnd
+         * says limit is the end of the file.
+         */
+        int parseRow(ByteBuffer buf, int pos, int limit, boolean atEnd) throws IOException {
+            this.buf = buf;
+            columns = 0;
+            blank = false;
+            int i = pos;
+            while (true) {
+                if (columns == COLUMNS)
+                    throw new IOException("Row at byte " + pos + " has more than " + COLUMNS + " columns");
+                boolean quoted = i < limit && buf.get(i) == '"';
+                escaped[columns] = false;
+                if (quoted) {
+                    //Find the closing quote; a doubled quote is an escaped quote.
+                    start[columns] = ++i;
+                    while (true) {
+                        if (i >= limit)
+                            return atEnd ? unterminated(pos) : -1;
+                        if (buf.get(i) == '"') {
+                            if (i + 1 < limit && buf.get(i + 1) == '"') {
+                                escaped[columns] = true;
+                                i += 2;
+                                continue;
+                            }
+                            if (i + 1 >= limit && !atEnd)
+                                return -1;
+                            break;
+                        }
+                        i++;
+                    }
+                    end[columns] = i++;
+                } else {
+                    start[columns] = i;
+                    while (i < limit) {
+                        byte b = buf.get(i);
+                        if (b == ',' || b == '\n' || b == '\r')
+                            break;
+                        i++;
+                    }
+                    end[columns] = i;
+                }
+                columns++;
+                //A field ends at a comma, a line break or the end of the file.
+                if (i >= limit) {
+                    if (!atEnd)
+                        return -1;
+                    return finish(pos, i);
+                }
+                byte b = buf.get(i);
+                if (b == ',') {
+                    i++;
+                    continue;
+                }
+                if (b == '\r') {
+                    if (i + 1 >= limit && !atEnd)
+                        return -1;
+                    if (i + 1 < limit && buf.get(i + 1) == '\n')
+                        i++;
+                    return finish(pos, i + 1);
+                }
+                if (b == '\n')
+                    return finish(pos, i + 1);
+                throw new IOException("Unexpected character after quoted field at byte " + i);
+            }
+        }
+
+        /*
+        This method checks the column count of a finished row.
+         */
+        private int finish(int pos, int next) throws IOException {
+            if (columns == 1 && start[0] == end[0] && !escaped[0]) {
+                blank = true;
+                return next;
+            }
+            if (columns != COLUMNS)
+                throw new IOException("Row at byte " + pos + " has " + columns + " columns, expected " + COLUMNS);
+            return next;
+        }
+
+        private int unterminated(int pos) throws IOException {
+            throw new IOException("Unterminated quoted field in row at byte " + pos);
+        }
+
+        /**
+         * Build a Volcano from the fields of the last row parsed.
+         *
+         * @param rowOffset the file offset of the row, for error messages.
+         * @return the volcano.
+         */
+        Volcano toVolcano(long rowOffset) throws IOException {
+            try {
+                return new Volcano(interned(0), string(1), string(2), interned(3), interned(4),
+                        parseDouble(5), parseDouble(6), parseInt(7), interned(8), interned(9), interned(10));
+            } catch (NumberFormatException e) {
+                throw new IOException("Bad number in row at byte " + rowOffset + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * Decode column c as a String. Pure ASCII fields are decoded as
+         * Latin-1, which copies the bytes as they are.
+         */
+        String string(int c) {
+            int n = unescape(c);
+            return new String(scratch, 0, n, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Return the dictionary's instance of column c. An ASCII value the
+         * dictionary already holds is found without building a String.
+         */
+        String interned(int c) {
+            int n = unescape(c);
+            return ascii ? dictionary.intern(scratch, 0, n)
+                    : dictionary.intern(new String(scratch, 0, n, StandardCharsets.UTF_8));
+        }
+
+        /*
+        This method copies column c into scratch, dropping the second quote of
+        each escaped pair, and returns its length. It sets ascii to whether
+        every byte is ASCII.
+         */
+        private int unescape(int c) {
+            int len = end[c] - start[c];
+            if (len > scratch.length)
+                scratch = new byte[Math.max(len, scratch.length * 2)];
+            int n = 0;
+            boolean ascii = true;
+            for (int i = start[c]; i < end[c]; i++) {
+                byte b = buf.get(i);
+                scratch[n++] = b;
+                ascii &= b >= 0;
+                //Keep only the first quote of an escaped pair.
+                if (b == '"' && escaped[c])
+                    i++;
+            }
+            this.ascii = ascii;
+            return n;
+        }
+
+        /**
+         * Parse column c as an int without building a String.
+         */
+        int parseInt(int c) {
+            int i = start[c], e = end[c];
+            boolean negative = i < e && buf.get(i) == '-';
+            if (negative || (i < e && buf.get(i) == '+'))
+                i++;
+            if (i == e)
+                throw new NumberFormatException("empty integer");
+            long value = 0;
+            for (; i < e; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9)
+                    return Integer.parseInt(string(c).trim());
+                value = value * 10 + d;
+                if (value > (long) Integer.MAX_VALUE + 1)
+                    throw new NumberFormatException("integer out of range: " + string(c));
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE)
+                throw new NumberFormatException("integer out of range: " + string(c));
+            return (int) value;
+        }
+
+        /**
+         * Parse column c as a double without building a String. Plain
+         * decimals with up to 15 significant digits are exact: the digits
+         * and the power of ten are both exact doubles, so one division
+         * rounds correctly. Anything else falls back to Double.parseDouble.
+         */
+        double parseDouble(int c) {
+            int i = start[c], e = end[c];
+            boolean negative = i < e && buf.get(i) == '-';
+            if (negative || (i < e && buf.get(i) == '+'))
+                i++;
+            long mantissa = 0;
+            int digits = 0, fraction = 0;
+            boolean seenPoint = false, any = false;
+            for (; i < e; i++) {
+                byte b = buf.get(i);
+                if (b == '.' && !seenPoint) {
+                    seenPoint = true;
+                    continue;
+                }
+                int d = b - '0';
+                if (d < 0 || d > 9 || digits >= 15)
+                    return Double.parseDouble(string(c).trim());
+                any = true;
+                if (mantissa != 0 || d != 0)
+                    digits++;
+                mantissa = mantissa * 10 + d;
+                if (seenPoint)
+                    fraction++;
+            }
+            if (!any)
+                throw new NumberFormatException("empty number");
+            if (fraction >= POWERS_OF_TEN.length)
+                return Double.parseDouble(string(c).trim());
+            double value = mantissa / POWERS_OF_TEN[fraction];
+            return negative ? -value : value;
+        }
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    static final int COLUMNS = 11;
+
+    /**
+     * The largest piece of the file mapped at once.
+     */
+    private static final int WINDOW_SIZE = 1 << 30;
+}
@@ -0,0 +1,336 @@
+/**********************************************************************
+ * @file ParallelCsvIngest.java
+ * @brief This program implements the ParallelCsvIngest class. It loads
+ * a volcano CSV on a ForkJoinPool. The file is cut into byte ranges,
+ * each range boundary is moved forward to the next line break that is
+ * not inside a quoted field, the chunks are parsed in parallel into
+ * per-chunk Volcano batches, and the batches are bulk-inserted into a
+ * hash table sized for all of them. The quote state at each boundary
+ * comes from a parallel count of the quotes in every earlier range.
+ * Each chunk interns its repeating text columns through a
+ * StringDictionary of its own, so the workers never lock; after the
+ * join the chunk dictionaries are merged and every row is pointed at
+ * the merged instances, so equal values share one String across chunks.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+public class ParallelCsvIngest {
+    // Usage: java ParallelCsvIngest <input file> [synthetic rows] [max threads]
+    // With a synthetic row count, a larger export is first written to a
+    // temporary file by repeating the input rows under new volcano numbers.
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java ParallelCsvIngest <input file> [synthetic rows] [max threads]");
+            System.exit(1);
+        }
+        String fileName = args[0];
+        File synthetic = null;
+        if (args.length > 1) {
+            synthetic = File.createTempFile("volcanoes", ".csv");
+            synthetic.deleteOnExit();
+            writeSynthetic(fileName, synthetic, Long.parseLong(args[1]));
+            fileName = synthetic.getPath();
+        }
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Math.max(8, Runtime.getRuntime().availableProcessors());
+
+        //One untimed run to load and compile the code.
+        ingest(fileName, ForkJoinPool.commonPool());
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long startParse = System.nanoTime();
+                List<ArrayList<Volcano>> batches = parse(fileName, pool, threads * CHUNKS_PER_THREAD);
+                long timeParse = System.nanoTime();
+                SeparateChainingHashTable<Volcano> table = insertAll(batches);
+                long timeInsert = System.nanoTime();
+                long rows = count(batches);
+                System.out.println("Threads=" + threads + ", Rows=" + rows
+                        + ", Parse rows/sec=" + rows * 1000000000L / Math.max(1, timeParse - startParse)
+                        + ", Insert Time(ns)=" + (timeInsert - timeParse)
+                        + ", Total rows/sec=" + rows * 1000000000L / Math.max(1, timeInsert - startParse)
+                        + (table.contains(batches.get(0).isEmpty() ? new Volcano() : batches.get(0).get(0)) ? "" : " (lookup failed)"));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        if (synthetic != null)
+            Files.deleteIfExists(synthetic.toPath());
+    }
+
+    /**
+     * Load a CSV file in parallel and insert every row into a new table.
+     *
+     * @param fileName the CSV file.
+     * @param pool     the pool to parse on.
+     * @return the table holding every volcano.
+     * @throws IOException if the file cannot be read or a row is malformed.
+     */
+    public static SeparateChainingHashTable<Volcano> ingest(String fileName, ForkJoinPool pool) throws IOException {
+        return insertAll(parse(fileName, pool, pool.getParallelism() * CHUNKS_PER_THREAD));
+    }
+
+    /**
+     * Parse a CSV file in parallel.
+     *
+     * @param fileName the CSV file.
+     * @param pool     the pool to parse on.
+     * @param chunks   the number of byte ranges to cut the file into.
+     * @return one batch of volcanoes per chunk, in file order.
+     * @throws IOException if the file cannot be read or a row is malformed.
+     */
+    public static List<ArrayList<Volcano>> parse(String fileName, ForkJoinPool pool, int chunks) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long dataStart = headerEnd(channel, fileSize);
+            long span = fileSize - dataStart;
+            //Keep every chunk small enough to map and index with an int.
+            int n = (int) Math.max(1, Math.max(Math.min(chunks, span / MIN_CHUNK_SIZE), (span + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE));
+
+            //Raw boundaries, evenly spaced.
+            long[] bounds = new long[n + 1];
+            for (int k = 0; k <= n; k++)
+                bounds[k] = dataStart + span * k / n;
+
+            //Count the quotes in each raw range; a running parity then says
+            //whether each raw boundary falls inside a quoted field.
+            long[] quotes = new long[n];
+            run(pool, n, k -> quotes[k] = countQuotes(channel, bounds[k], bounds[k + 1]));
+            boolean[] inQuote = new boolean[n + 1];
+            for (int k = 0; k < n; k++)
+                inQuote[k + 1] = inQuote[k] ^ (quotes[k] & 1) == 1;
+
+            //Move every inner boundary to the start of the next row.
+            long[] aligned = bounds.clone();
+            run(pool, n - 1, k -> aligned[k + 1] = nextRowStart(channel, bounds[k + 1], inQuote[k + 1], fileSize));
+
+            //Parse every chunk into its own batch, with its own dictionary.
+            StringDictionary[] dictionaries = new StringDictionary[n];
+            List<ArrayList<Volcano>> batches = new ArrayList<>();
+            for (int k = 0; k < n; k++)
+                batches.add(null);
+            run(pool, n, k -> {
+                dictionaries[k] = new StringDictionary();
+                batches.set(k, parseChunk(channel, aligned[k], Math.max(aligned[k], aligned[k + 1]), dictionaries[k]));
+            });
+            shareStrings(pool, batches, dictionaries);
+            return batches;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Insert every batch into one table sized for all the rows, so no
+     * rehash happens while inserting.
+     *
+     * @param batches the parsed batches.
+     * @return the filled table.
+     */
+    public static SeparateChainingHashTable<Volcano> insertAll(List<ArrayList<Volcano>> batches) {
+        long rows = count(batches);
+        SeparateChainingHashTable<Volcano> table = new SeparateChainingHashTable<>((int) Math.min(Integer.MAX_VALUE / 2, rows));
+        for (ArrayList<Volcano> batch : batches)
+            table.insertAll(batch);
+        return table;
+    }
+
+    private static long count(List<ArrayList<Volcano>> batches) {
+        long rows = 0;
+        for (ArrayList<Volcano> batch : batches)
+            rows += batch.size();
+        return rows;
+    }
+
+    /*
+    This method merges the chunk dictionaries and points the interned fields
+    of every row at the merged instances. The merge is serial but only sees
+    the few distinct values of each chunk; the rows are then rewritten in
+    parallel, each chunk reading only its own dictionary. Rows of the first
+    chunk already hold the merged instances and are left alone.
+     */
+    private static void shareStrings(ForkJoinPool pool, List<ArrayList<Volcano>> batches, StringDictionary[] dictionaries) {
+        StringDictionary merged = new StringDictionary();
+        String[][] shared = new String[dictionaries.length][];
+        for (int k = 0; k < dictionaries.length; k++) {
+            StringDictionary dictionary = dictionaries[k];
+            shared[k] = new String[dictionary.size()];
+            for (int code = 0; code < dictionary.size(); code++)
+                shared[k][code] = merged.intern(dictionary.get(code));
+        }
+        run(pool, dictionaries.length, k -> {
+            if (k == 0)
+                return;
+            StringDictionary dictionary = dictionaries[k];
+            String[] instances = shared[k];
+            for (Volcano v : batches.get(k)) {
+                v.setRegion(shared(dictionary, instances, v.getRegion()));
+                v.setCountry(shared(dictionary, instances, v.getCountry()));
+                v.setLocation(shared(dictionary, instances, v.getLocation()));
+                v.setType(shared(dictionary, instances, v.getType()));
+                v.setStatus(shared(dictionary, instances, v.getStatus()));
+                v.setLastKnownEruption(shared(dictionary, instances, v.getLastKnownEruption()));
+            }
+        });
+    }
+
+    private static String shared(StringDictionary dictionary, String[] instances, String s) {
+        return s == null ? null : instances[dictionary.lookup(s)];
+    }
+
+    /*
+    This method runs task(0) .. task(n - 1) on the pool, splitting the index
+    range in halves until each piece is one task.
+     */
+    private static void run(ForkJoinPool pool, int n, IntConsumer task) {
+        if (n > 0)
+            pool.invoke(new RangeAction(0, n, task));
+    }
+
+    private static final class RangeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo, hi;
+        private final IntConsumer task;
+
+        RangeAction(int lo, int hi, IntConsumer task) {
+            this.lo = lo;
+            this.hi = hi;
+            this.task = task;
+        }
+
+        protected void compute() {
+            if (hi - lo == 1) {
+                task.accept(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new RangeAction(lo, mid, task), new RangeAction(mid, hi, task));
+        }
+    }
+
+    /*
+    This method returns the offset just past the header line.
+     */
+    private static long headerEnd(FileChannel channel, long fileSize) throws IOException {
+        long pos = 0;
+        while (pos < fileSize) {
+            int length = (int) Math.min(SCAN_WINDOW, fileSize - pos);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+            for (int i = 0; i < length; i++)
+                if (buf.get(i) == '\n')
+                    return pos + i + 1;
+            pos += length;
+        }
+        return fileSize;
+    }
+
+    private static long countQuotes(FileChannel channel, long from, long to) {
+        try {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            long quotes = 0;
+            for (int i = 0, length = (int) (to - from); i < length; i++)
+                if (buf.get(i) == '"')
+                    quotes++;
+            return quotes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+    This method returns the offset just past the first line break at or after
+    from that is outside a quoted field, given whether from is inside one.
+     */
+    private static long nextRowStart(FileChannel channel, long from, boolean inQuote, long fileSize) {
+        try {
+            long pos = from;
+            while (pos < fileSize) {
+                int length = (int) Math.min(SCAN_WINDOW, fileSize - pos);
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+                for (int i = 0; i < length; i++) {
+                    byte b = buf.get(i);
+                    if (b == '"')
+                        inQuote = !inQuote;
+                    else if (b == '\n' && !inQuote)
+                        return pos + i + 1;
+                }
+                pos += length;
+            }
+            return fileSize;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+    This method parses the whole rows in [from, to).
+     */
+    private static ArrayList<Volcano> parseChunk(FileChannel channel, long from, long to, StringDictionary dictionary) {
+        try {
+            ArrayList<Volcano> batch = new ArrayList<>();
+            if (to <= from)
+                return batch;
+            int length = (int) (to - from);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+            MappedCsvLoader.Tokenizer tokenizer = new MappedCsvLoader.Tokenizer(dictionary);
+            for (int pos = 0; pos < length; ) {
+                int next = tokenizer.parseRow(buf, pos, length, true);
+                if (!tokenizer.blank)
+                    batch.add(tokenizer.toVolcano(from + pos));
+                pos = next;
+            }
+            return batch;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+    This method writes a CSV with the header of source followed by its rows
+    repeated until rows have been written. Each copy gets a suffix on its
+    volcano number so that every row is distinct.
+     */
+    private static void writeSynthetic(String source, File target, long rows) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(source));
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(target), 1 << 20)) {
+            out.write(lines.get(0));
+            out.write('\n');
+            long written = 0;
+            for (int copy = 0; written < rows; copy++) {
+                for (int i = 1; i < lines.size() && written < rows; i++, written++) {
+                    String line = lines.get(i);
+                    int numberEnd = line.indexOf(',', line.indexOf(',') + 1);
+                    out.write(line, 0, numberEnd);
+                    out.write('-');
+                    out.write(Integer.toString(copy));
+                    out.write(line, numberEnd, line.length() - numberEnd);
+                    out.write('\n');
+                }
+            }
+        }
+    }
+
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final long MIN_CHUNK_SIZE = 1 << 16;
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+    private static final int SCAN_WINDOW = 1 << 16;
+}
@@ -0,0 +1,243 @@
+/**********************************************************************
+ * @file PostingList.java
+ * @brief This program implements the PostingList class. A posting list
+ * is a sorted set of record IDs kept in a growable int array. Two lists
+ * can be intersected or united with a single merge pass. A read-only
+ * view lets an owner hand out a list without letting callers change it.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Arrays;
+
+public class PostingList {
+    /**
+     * Construct an empty posting list.
+     */
+    public PostingList() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Construct an empty posting list.
+     *
+     * @param capacity the number of IDs it can hold before growing.
+     */
+    public PostingList(int capacity) {
+        ids = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Return a read-only view of a list. The view follows later changes
+     * to the list, and its add and remove throw
+     * UnsupportedOperationException.
+     *
+     * @param list the list to view.
+     * @return the view.
+     */
+    public static PostingList unmodifiable(PostingList list) {
+        return list instanceof View ? list : new View(list.contents());
+    }
+
+    /**
+     * Add a record ID. IDs handed out in increasing order are appended
+     * without any shifting.
+     *
+     * @param id the ID to add.
+     * @return true if id was not already present.
+     */
+    public boolean add(int id) {
+        //The common case: a new record with a higher ID than any before it.
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity(size + 1);
+            ids[size++] = id;
+            return true;
+        }
+        int i = Arrays.binarySearch(ids, 0, size, id);
+        if (i >= 0)
+            return false;
+        i = -(i + 1);
+        ensureCapacity(size + 1);
+        System.arraycopy(ids, i, ids, i + 1, size - i);
+        ids[i] = id;
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove a record ID.
+     *
+     * @param id the ID to remove.
+     * @return true if id was present.
+     */
+    public boolean remove(int id) {
+        int i = Arrays.binarySearch(ids, 0, size, id);
+        if (i < 0)
+            return false;
+        System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Find a record ID.
+     *
+     * @param id the ID to search for.
+     * @return true if id is present.
+     */
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /**
+     * Return the number of IDs in the list.
+     *
+     * @return the number of IDs.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the ID at a position, in increasing order.
+     *
+     * @param i the position, from 0 to size() - 1.
+     * @return the ID.
+     */
+    public int get(int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        return ids[i];
+    }
+
+    /**
+     * Return a copy of the IDs in increasing order.
+     *
+     * @return the IDs.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Return the IDs present in both lists.
+     *
+     * @param a the first list.
+     * @param b the second list.
+     * @return a new list holding the intersection.
+     */
+    public static PostingList intersect(PostingList a, PostingList b) {
+        a = a.contents();
+        b = b.contents();
+        PostingList result = new PostingList(Math.min(a.size, b.size));
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            int x = a.ids[i], y = b.ids[j];
+            if (x < y) {
+                i++;
+            } else if (x > y) {
+                j++;
+            } else {
+                result.ids[result.size++] = x;
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the IDs present in either list.
+     *
+     * @param a the first list.
+     * @param b the second list.
+     * @return a new list holding the union.
+     */
+    public static PostingList union(PostingList a, PostingList b) {
+        a = a.contents();
+        b = b.contents();
+        PostingList result = new PostingList(a.size + b.size);
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            int x = i < a.size ? a.ids[i] : Integer.MAX_VALUE;
+            int y = j < b.size ? b.ids[j] : Integer.MAX_VALUE;
+            if (j == b.size || (i < a.size && x < y)) {
+                result.ids[result.size++] = x;
+                i++;
+            } else if (i == a.size || y < x) {
+                result.ids[result.size++] = y;
+                j++;
+            } else {
+                result.ids[result.size++] = x;
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /*
+    This method returns the list that holds the IDs: the list itself, or the
+    list a view reads.
+     */
+    PostingList contents() {
+        return this;
+    }
+
+    /*
+    A read-only view of another list. Every read goes to that list, so the
+    view always shows its current IDs.
+     */
+    private static final class View extends PostingList {
+        View(PostingList list) {
+            super(1);
+            this.list = list;
+        }
+
+        public boolean add(int id) {
+            throw new UnsupportedOperationException("Read-only posting list");
+        }
+
+        public boolean remove(int id) {
+            throw new UnsupportedOperationException("Read-only posting list");
+        }
+
+        public boolean contains(int id) {
+            return list.contains(id);
+        }
+
+        public int size() {
+            return list.size();
+        }
+
+        public int get(int i) {
+            return list.get(i);
+        }
+
+        public int[] toArray() {
+            return list.toArray();
+        }
+
+        PostingList contents() {
+            return list;
+        }
+
+        private final PostingList list;
+    }
+
+    /*
+    This method grows the array, doubling it, so it can hold n IDs.
+     */
+    private void ensureCapacity(int n) {
+        if (n > ids.length)
+            ids = Arrays.copyOf(ids, Math.max(n, ids.length * 2));
+    }
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * The IDs in increasing order; only the first size are in use.
+     */
+    private int[] ids;
+    private int size;
+}
@@ -12,90 +12,82 @@
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Scanner;
 import java.util.Collections;
 import java.io.FileWriter;
+import javax.management.JMException;
 
 public class Proj4 {
     public static void main(String[] args) throws IOException {
+        //--metrics turns on the chaining table's counters and JMX bean. They
+        //cost time on every operation, so timing runs leave them off.
+        boolean withMetrics = args.length > 0 && args[0].equals(METRICS_FLAG);
+        if (withMetrics)
+            args = Arrays.copyOfRange(args, 1, args.length);
         // Use command line arguments to specify the input file
-        if (args.length != 2) {
-            System.err.println("Usage: java TestAvl <input file> <number of lines>");
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Usage: java Proj4 [" + METRICS_FLAG + "] <input file> <number of lines>"
+                    + " [chaining | robin_hood | cuckoo] [max load factor]");
             System.exit(1);
         }
 
         String inputFileName = args[0]; //Filename
         int numLines = Integer.parseInt(args[1]); //Number of lines
-        SeparateChainingHashTable<Volcano> hashTable = new SeparateChainingHashTable<>(); //The hashtable of Volcano objects
-        ArrayList<Volcano> origList = new ArrayList<Volcano>();   //The list of Volcano objects
-
-        // For file input
-        FileInputStream inputFileNameStream = null;
-        Scanner inputFileNameScanner = null;
+        //The engine behind the table; separate chaining unless another is named.
+        HashTable.Engine engine = args.length > 2 ? HashTable.Engine.forName(args[2]) : HashTable.Engine.CHAINING;
+        HashTable<Volcano> hashTable = args.length > 3
+                ? engine.create(DEFAULT_TABLE_SIZE, Double.parseDouble(args[3]))
+                : engine.create(DEFAULT_TABLE_SIZE); //The hashtable of Volcano objects
+        ArrayList<Volcano> origList;   //The list of Volcano objects
+        SeparateChainingHashMap<String, Volcano> byNumber = new SeparateChainingHashMap<>(); //Volcano number -> Volcano
+        HashTableMetrics metrics = null; //Counters printed after each timing row; only chaining keeps them
+        if (withMetrics && hashTable instanceof SeparateChainingHashTable) {
+            metrics = ((SeparateChainingHashTable<Volcano>) hashTable).enableMetrics();
+            try {
+                //Let JMX clients such as jconsole watch the table while it runs.
+                metrics.register("hashTable");
+            } catch (JMException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        System.out.println("Engine: " + engine);
 
+        //Load the records from a snapshot, or through the memory-mapped reader.
+        long startLoad = System.nanoTime();
         try {
-            // Open the input file
-            inputFileNameStream = new FileInputStream(inputFileName);
-            inputFileNameScanner = new Scanner(inputFileNameStream);
-
-            // ignore first line
-            inputFileNameScanner.nextLine();
-
-            // FINISH ME
-            int count = 0; //count keeps track of the line count.
-            //Traverse numLines.
-            while (count < numLines) {//inputFileNameScanner.hasNext()) {
-                //Scan in the line.
-                String line = inputFileNameScanner.nextLine();
-                String[] parts = line.split(","); // split the string into multiple parts
-
-                Volcano v; //Store the data in v.
-                //Condition for exceptions
-                if (parts.length != 11) {
-                    //data stores the values of each variable.
-                    ArrayList<String> data = new ArrayList<>();
-                    //s is updated with entries that need to be combined.
-                    String s = "";
-                    for (int i = 0; i < parts.length; i++) {
-                        if (parts[i].indexOf("\"") != -1) {
-                            s += parts[i];
-                            i++;
-                            //Loop until the last quote is found.
-                            while (i < parts.length) {
-                                s += "," + parts[i];
-                                if (parts[i].indexOf("\"") != -1) {
-                                    break;
-                                }
-                                i++;
-                            }
-                            data.add(s);
-                        } else {
-                            data.add(parts[i]);
-                        }
-                    }
-                    //Update v with the data.
-                    v = new Volcano(data.get(0), data.get(1), data.get(2), data.get(3), data.get(4),
-                            Double.parseDouble(data.get(5)), Double.parseDouble(data.get(6)), Integer.parseInt(data.get(7)), data.get(8), data.get(9), data.get(10));
-                } else {
-                    //Update v with the data from the array.
-                    v = new Volcano(parts[0], parts[1], parts[2], parts[3], parts[4],
-                            Double.parseDouble(parts[5]), Double.parseDouble(parts[6]), Integer.parseInt(parts[7]), parts[8], parts[9], parts[10]);
-                }
-                origList.add(v); // add the data onto the ArrayList
-                count++;
+            if (inputFileName.endsWith(SNAPSHOT_SUFFIX)) {
+                origList = VolcanoSnapshot.load(inputFileName).getRecords();
+                if (origList.size() > numLines)
+                    origList = new ArrayList<>(origList.subList(0, numLines));
+            } else {
+                origList = MappedCsvLoader.load(inputFileName, numLines);
             }
         } catch (Exception e) {
             System.out.println(e.getMessage());
             return;
         }
-        //This block guarantees the file is closed.
-        finally {
-            if (inputFileNameStream != null) {
-                //The input file is closed.
-                inputFileNameStream.close();
+        long timeLoad = System.nanoTime();
+        System.out.println("Load: Number of Lines=" + numLines + ", Load Time(ns)=" + (timeLoad - startLoad));
+        //Index each volcano by its number.
+        for (Volcano v : origList) {
+            byNumber.put(v.getNumber(), v);
+        }
+
+        //Look up every volcano by its number. The index is keyed by the number
+        //string itself, so no probe Volcano has to be built.
+        long startLookup = System.nanoTime();
+        int found = 0;
+        for(int i = 0; i<origList.size(); i++) {
+            if(byNumber.get(origList.get(i).getNumber()) != null) {
+                found++;
             }
         }
+        long timeLookup = System.nanoTime();
+        System.out.println("Index: Number of Lines=" + numLines + ", Volcanoes Found=" + found
+                + ", Lookup Time(ns)=" + (timeLookup - startLookup));
 
         //Create File Writer to open the output file.
         FileWriter out = null;
@@ -109,90 +101,87 @@ public class Proj4 {
             //Changed between shuffled, sorted, and reversed to see runtimes of the data.
             //Complete the operations on the sorted list.
             Collections.sort(origList);
-            //Calculate insert time. Iterate through the list, inserting the elements into the hashtable.
+            //Calculate insert time. Insert the whole list as one batch; the table is grown once up front.
             long startInsert = System.nanoTime();
-            for(int i = 0; i<origList.size(); i++) {
-                hashTable.insert(origList.get(i));
-            }
+            hashTable.insertAll(origList);
             long timeInsert = System.nanoTime();
-            //Calculate search time. Iterate through the list, searching for the elements in the hashtable.
+            String chains = hashTable.shapeSummary(); //Table shape once every element is in
+            //Calculate search time. Search the hashtable for every element of the list.
             long startSearch = System.nanoTime();
-            for(int i = 0; i<origList.size(); i++) {
-                boolean search = hashTable.contains(origList.get(i));
-            }
+            int searchFound = hashTable.containsAll(origList);
             long timeSearch = System.nanoTime();
-            //Calculate deletion time. Iterate through the list, deleting the elements in the hashtable.
+            //Calculate deletion time. Delete every element of the list from the hashtable.
             long startDelete = System.nanoTime();
-            for(int i = 0; i<origList.size(); i++) {
-                hashTable.remove(origList.get(i));
-            }
+            hashTable.removeAll(origList);
             long timeDelete = System.nanoTime();
 
             //Print out the data and write to the output file.
             System.out.println("Sorted: Number of Lines=" + numLines + ", Insert Time(ns)=" + (timeInsert - startInsert)
-                    + ", Search Time(ns)=" + (timeSearch - startSearch) + ", Remove Time(ns)=" + (timeDelete - startDelete));
+                    + ", Search Time(ns)=" + (timeSearch - startSearch) + ", Remove Time(ns)=" + (timeDelete - startDelete)
+                    + ", Found=" + searchFound);
             out.write(numLines + "," + (timeInsert - startInsert)
                     + "," + (timeSearch - startSearch) + "," + (timeDelete - startDelete) + "\n");
+            System.out.println("Sorted Metrics: " + (metrics == null ? "" : metrics + ", ") + chains);
+            if (metrics != null)
+                metrics.reset();
 
             //Do the same operations on the shuffled list.
             Collections.shuffle(origList);
 
-            //Calculate insert time. Iterate through the list, inserting the elements into the hashtable.
+            //Calculate insert time. Insert the whole list as one batch.
             startInsert = System.nanoTime();
-            for(int i = 0; i<origList.size(); i++) {
-                hashTable.insert(origList.get(i));
-            }
+            hashTable.insertAll(origList);
             timeInsert = System.nanoTime();
+            chains = hashTable.shapeSummary(); //Table shape once every element is in
 
-            //Calculate search time. Iterate through the list, searching for the elements in the hashtable.
+            //Calculate search time. Search the hashtable for every element of the list.
             startSearch = System.nanoTime();
-            for(int i = 0; i<origList.size(); i++) {
-                boolean search = hashTable.contains(origList.get(i));
-            }
+            searchFound = hashTable.containsAll(origList);
             timeSearch = System.nanoTime();
 
-            //Calculate deletion time. Iterate through the list, deleting the elements in the hashtable.
+            //Calculate deletion time. Delete every element of the list from the hashtable.
             startDelete = System.nanoTime();
-            for(int i = 0; i<origList.size(); i++) {
-                hashTable.remove(origList.get(i));
-            }
+            hashTable.removeAll(origList);
             timeDelete = System.nanoTime();
 
             //Print out the data and write to the output file.
             System.out.println("Shuffled: Number of Lines=" + numLines + ", Insert Time(ns)=" + (timeInsert - startInsert)
-                    + ", Search Time(ns)=" + (timeSearch - startSearch) + ", Remove Time(ns)=" + (timeDelete - startDelete));
+                    + ", Search Time(ns)=" + (timeSearch - startSearch) + ", Remove Time(ns)=" + (timeDelete - startDelete)
+                    + ", Found=" + searchFound);
             out.write(numLines + "," + (timeInsert - startInsert)
                     + "," + (timeSearch - startSearch) + "," + (timeDelete - startDelete) + "\n");
+            System.out.println("Shuffled Metrics: " + (metrics == null ? "" : metrics + ", ") + chains);
+            if (metrics != null)
+                metrics.reset();
 
             //Do operations on the reversed list.
             Collections.sort(origList, Collections.reverseOrder());
 
-            //Calculate insert time. Iterate through the list, inserting the elements into the hashtable.
+            //Calculate insert time. Insert the whole list as one batch.
             startInsert = System.nanoTime();
-            for(int i = 0; i<origList.size(); i++) {
-                hashTable.insert(origList.get(i));
-            }
+            hashTable.insertAll(origList);
             timeInsert = System.nanoTime();
+            chains = hashTable.shapeSummary(); //Table shape once every element is in
 
-            //Calculate search time. Iterate through the list, searching for the elements in the hashtable.
+            //Calculate search time. Search the hashtable for every element of the list.
             startSearch = System.nanoTime();
-            for(int i = 0; i<origList.size(); i++) {
-                boolean search = hashTable.contains(origList.get(i));
-            }
+            searchFound = hashTable.containsAll(origList);
             timeSearch = System.nanoTime();
 
-            //Calculate deletion time. Iterate through the list, deleting the elements in the hashtable.
+            //Calculate deletion time. Delete every element of the list from the hashtable.
             startDelete = System.nanoTime();
-            for(int i = 0; i<origList.size(); i++) {
-                hashTable.remove(origList.get(i));
-            }
+            hashTable.removeAll(origList);
             timeDelete = System.nanoTime();
 
             //Print out the data and write to the output file.
             System.out.println("Reversed: Number of Lines=" + numLines + ", Insert Time(ns)=" + (timeInsert - startInsert)
-                    + ", Search Time(ns)=" + (timeSearch - startSearch) + ", Remove Time(ns)=" + (timeDelete - startDelete));
+                    + ", Search Time(ns)=" + (timeSearch - startSearch) + ", Remove Time(ns)=" + (timeDelete - startDelete)
+                    + ", Found=" + searchFound);
             out.write(numLines + "," + (timeInsert - startInsert)
                     + "," + (timeSearch - startSearch) + "," + (timeDelete - startDelete) + "\n");
+            System.out.println("Reversed Metrics: " + (metrics == null ? "" : metrics + ", ") + chains);
+            if (metrics != null)
+                metrics.reset();
         }
         catch(Exception e) {
             System.out.println(e.getMessage());
@@ -201,4 +190,138 @@ public class Proj4 {
             out.close();
         }
     }
+
+    /**
+     * The initial size of the table, whichever engine it uses.
+     */
+    static final int DEFAULT_TABLE_SIZE = 101;
+
+    /**
+     * The first argument that turns on the table's metrics.
+     */
+    static final String METRICS_FLAG = "--metrics";
+
+    /**
+     * Input files with this suffix are VolcanoSnapshot files, not CSV.
+     */
+    static final String SNAPSHOT_SUFFIX = ".vsnap";
+
+    /**
+     * Read the first numLines records of a volcano CSV file, skipping the
+     * header line. The file is read as UTF-8 and quoted fields are parsed
+     * as in MappedCsvLoader, so both loaders build equal records. Reading
+     * stops early if the file has fewer records. The repeating text
+     * columns are interned through one dictionary, so equal values share
+     * a String.
+     *
+     * @param inputFileName the CSV file.
+     * @param numLines      the number of records to read.
+     * @return the volcanoes in file order.
+     * @throws IOException if the file cannot be read.
+     */
+    public static ArrayList<Volcano> readVolcanoes(String inputFileName, int numLines) throws IOException {
+        ArrayList<Volcano> origList = new ArrayList<Volcano>();   //The list of Volcano objects
+        StringDictionary dictionary = new StringDictionary();      //Shared values of the text columns
+
+        // For file input
+        FileInputStream inputFileNameStream = null;
+        Scanner inputFileNameScanner = null;
+
+        try {
+            // Open the input file
+            inputFileNameStream = new FileInputStream(inputFileName);
+            inputFileNameScanner = new Scanner(inputFileNameStream, StandardCharsets.UTF_8);
+
+            // ignore first line
+            inputFileNameScanner.nextLine();
+
+            int count = 0; //count keeps track of the line count.
+            //Traverse numLines.
+            while (count < numLines && inputFileNameScanner.hasNextLine()) {
+                //Scan in the line.
+                origList.add(parseVolcano(inputFileNameScanner.nextLine(), dictionary)); // add the data onto the ArrayList
+                count++;
+            }
+        }
+        //This block guarantees the file is closed.
+        finally {
+            if (inputFileNameStream != null) {
+                //The input file is closed.
+                inputFileNameStream.close();
+            }
+        }
+        return origList;
+    }
+
+    /**
+     * Parse one CSV line into a Volcano. Quoted fields follow RFC 4180,
+     * the same as MappedCsvLoader: a quoted name keeps its commas and
+     * loses its quotes, and a doubled quote stands for one quote.
+     *
+     * @param line the CSV line.
+     * @return the volcano.
+     */
+    public static Volcano parseVolcano(String line) {
+        return parseVolcano(line, null);
+    }
+
+    /**
+     * Parse one CSV line into a Volcano, interning region, country,
+     * location, type, status and last known eruption through dictionary.
+     *
+     * @param line       the CSV line.
+     * @param dictionary the dictionary to intern through, or null to keep
+     *                   the split strings.
+     * @return the volcano.
+     */
+    public static Volcano parseVolcano(String line, StringDictionary dictionary) {
+        String[] parts = splitFields(line); // split the string into its fields
+
+        if (parts.length != 11)
+            throw new IllegalArgumentException("Expected 11 fields but found " + parts.length + ": " + line);
+        //Build the volcano from the array.
+        return new Volcano(intern(parts[0], dictionary), parts[1], parts[2], intern(parts[3], dictionary),
+                intern(parts[4], dictionary), Double.parseDouble(parts[5]), Double.parseDouble(parts[6]),
+                Integer.parseInt(parts[7]), intern(parts[8], dictionary), intern(parts[9], dictionary),
+                intern(parts[10], dictionary));
+    }
+
+    /*
+    This method splits a CSV line at the commas outside quotes. The quotes
+    around a quoted field are dropped, and a doubled quote inside one is kept
+    as a single quote.
+     */
+    private static String[] splitFields(String line) {
+        ArrayList<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"')
+                    field.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+                    field.append(line.charAt(++i));
+                else
+                    quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /*
+    This method returns the dictionary's instance of s, or s itself when there
+    is no dictionary.
+     */
+    private static String intern(String s, StringDictionary dictionary) {
+        return dictionary == null ? s : dictionary.intern(s);
+    }
 }
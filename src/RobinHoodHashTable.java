@@ -0,0 +1,284 @@
+/**********************************************************************
+ * @file RobinHoodHashTable.java
+ * @brief This program implements the RobinHoodHashTable class. It
+ * implements a hash table that uses open addressing with linear probing
+ * over one flat array of items and a parallel array of their hashes.
+ * Inserts follow the Robin Hood rule: an item that has probed further
+ * from its home slot than the item in its way takes that slot, and the
+ * displaced item moves on. This keeps probe lengths short and even at
+ * high load factors, and lets an unsuccessful lookup stop as soon as it
+ * passes the point where the item would have been placed. Removes shift
+ * the following items back, so no tombstones are ever left behind.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Arrays;
+
+// RobinHoodHashTable class
+//
+// CONSTRUCTION: an approximate initial size or default of 101, and
+// optionally the maximum load factor, below 1
+//
+// ******************PUBLIC OPERATIONS*********************
+// void insert( x )       --> Insert x
+// void remove( x )       --> Remove x
+// boolean contains( x )  --> Return true if x is present
+// void makeEmpty( )      --> Remove all items and release the slots
+// int size( )            --> Return the number of items
+// String shapeSummary( ) --> Load factor and probe lengths on one line
+
+public class RobinHoodHashTable<AnyType> implements HashTable<AnyType> {
+    /**
+     * Construct the hash table.
+     */
+    public RobinHoodHashTable() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Construct the hash table.
+     *
+     * @param size approximate number of items the table should hold
+     *             before it has to grow.
+     */
+    public RobinHoodHashTable(int size) {
+        this(size, DEFAULT_MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Construct the hash table.
+     *
+     * @param size          approximate number of items the table should
+     *                      hold before it has to grow.
+     * @param maxLoadFactor the table grows when items per slot would go
+     *                      above this; it must be below 1 so a probe
+     *                      always reaches an empty slot.
+     */
+    public RobinHoodHashTable(int size, double maxLoadFactor) {
+        if (!(maxLoadFactor > 0) || maxLoadFactor >= 1)
+            throw new IllegalArgumentException("Maximum load factor must be in (0, 1): " + maxLoadFactor);
+        this.maxLoadFactor = maxLoadFactor;
+        initialLength = tableSizeFor(Math.max(1, size));
+        allocate(initialLength);
+    }
+
+    /**
+     * Insert into the hash table. If the item is
+     * already present, then do nothing. Grow the table if
+     * the insertion exceeds the maximum load factor.
+     *
+     * @param x the item to insert.
+     */
+    public void insert(AnyType x) {
+        int hash = spread(x.hashCode());
+        //Probe for x. It can only be stored before the first item that is
+        //nearer its home slot than x would be at the same place.
+        int i = hash & mask;
+        int dist = 0;
+        while (items[i] != null) {
+            if (probeDistance(i) < dist)
+                break;
+            if (hashes[i] == hash && x.equals(items[i]))
+                return;
+            i = (i + 1) & mask;
+            dist++;
+        }
+        //x is absent, and i is where it belongs.
+        place(x, hash, i, dist);
+        //Grow if the insertion exceeds the maximum load factor.
+        if (++currentSize > maxFill)
+            rehash();
+    }
+
+    /**
+     * Remove from the hash table.
+     *
+     * @param x the item to remove.
+     */
+    public void remove(AnyType x) {
+        int i = find(x);
+        if (i < 0)
+            return;
+        //Shift the following items back one slot each, stopping at an empty
+        //slot or at an item already in its home slot.
+        int next = (i + 1) & mask;
+        while (items[next] != null && probeDistance(next) > 0) {
+            items[i] = items[next];
+            hashes[i] = hashes[next];
+            i = next;
+            next = (next + 1) & mask;
+        }
+        items[i] = null;
+        currentSize--;
+    }
+
+    /**
+     * Find an item in the hash table.
+     *
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    public boolean contains(AnyType x) {
+        return find(x) >= 0;
+    }
+
+    /**
+     * Make the hash table logically empty.
+     */
+    public void makeEmpty() {
+        //Drop the slots by going back to a table of the initial size.
+        allocate(initialLength);
+        currentSize = 0;
+    }
+
+    /**
+     * Return the number of items in the hash table.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return currentSize;
+    }
+
+    /**
+     * Return the current shape of the table on one line: its load factor,
+     * the mean and longest number of slots a successful lookup visits,
+     * and how many items sit each distance from their home slot.
+     *
+     * @return the table shape.
+     */
+    public String shapeSummary() {
+        long[] histogram = new long[8];
+        long total = 0;
+        int max = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == null)
+                continue;
+            int dist = probeDistance(i);
+            if (dist >= histogram.length)
+                histogram = Arrays.copyOf(histogram, Math.max(dist + 1, histogram.length * 2));
+            histogram[dist]++;
+            total += dist + 1;
+            max = Math.max(max, dist + 1);
+        }
+        return "Load Factor=" + String.format("%.3f", (double) currentSize / items.length)
+                + ", Avg Probe=" + String.format("%.2f", currentSize == 0 ? 0 : (double) total / currentSize)
+                + ", Max Probe=" + max + ", Probe Distances=" + Arrays.toString(Arrays.copyOf(histogram, max));
+    }
+
+    /*
+    This method returns the slot holding x, or -1 if x is absent.
+     */
+    private int find(Object x) {
+        int hash = spread(x.hashCode());
+        int i = hash & mask;
+        for (int dist = 0; items[i] != null; dist++) {
+            //Past this point x would have taken the slot on insert.
+            if (probeDistance(i) < dist)
+                return -1;
+            if (hashes[i] == hash && x.equals(items[i]))
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /*
+    This method stores an absent item, starting at slot i, dist slots from its
+    home. Each item met that is nearer its own home gives up its slot and is
+    carried on in turn, until an empty slot is reached.
+     */
+    private void place(Object x, int hash, int i, int dist) {
+        while (items[i] != null) {
+            int existing = probeDistance(i);
+            if (existing < dist) {
+                Object displaced = items[i];
+                int displacedHash = hashes[i];
+                items[i] = x;
+                hashes[i] = hash;
+                x = displaced;
+                hash = displacedHash;
+                dist = existing;
+            }
+            i = (i + 1) & mask;
+            dist++;
+        }
+        items[i] = x;
+        hashes[i] = hash;
+    }
+
+    /*
+    This method doubles the table size and places every item again. The
+    items are already known to be distinct, so no equality checks are needed.
+     */
+    private void rehash() {
+        Object[] oldItems = items;
+        int[] oldHashes = hashes;
+        allocate(items.length * 2);
+        for (int i = 0; i < oldItems.length; i++) {
+            if (oldItems[i] != null)
+                place(oldItems[i], oldHashes[i], oldHashes[i] & mask, 0);
+        }
+    }
+
+    /*
+    This method creates empty arrays of the given power-of-two length.
+     */
+    private void allocate(int length) {
+        items = new Object[length];
+        hashes = new int[length];
+        mask = length - 1;
+        maxFill = (int) (length * maxLoadFactor);
+    }
+
+    /*
+    This method returns how many slots past its home slot the item in slot i
+    is stored.
+     */
+    private int probeDistance(int i) {
+        return (i - (hashes[i] & mask)) & mask;
+    }
+
+    /*
+    This method mixes every bit of a hash code into the low bits the mask
+    keeps (the Murmur3 finalizer).
+     */
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Internal method to find the smallest power-of-two table length that
+     * can hold n items without exceeding the maximum load factor.
+     *
+     * @param n the number of items.
+     * @return a power of two.
+     */
+    private int tableSizeFor(int n) {
+        int length = 2;
+        while (length * maxLoadFactor < n && length < MAX_TABLE_SIZE)
+            length <<= 1;
+        return length;
+    }
+
+    private static final int DEFAULT_TABLE_SIZE = 101;
+    private static final double DEFAULT_MAX_LOAD_FACTOR = 0.875;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    /**
+     * The flat arrays of items and their spread hashes. A null item marks
+     * an empty slot.
+     */
+    private Object[] items;
+    private int[] hashes;
+    private int mask;
+    private int maxFill;
+    private int currentSize;
+    private final int initialLength;
+    private final double maxLoadFactor;
+}
@@ -0,0 +1,259 @@
+/**********************************************************************
+ * @file SeparateChainingHashMap.java
+ * @brief This program implements the SeparateChainingHashMap class. It
+ * implements a key/value map that uses separate chaining to handle
+ * collisions. Keys are placed with HashStrategy.modPrime(), the default
+ * strategy of SeparateChainingHashTable, so both use the same prime
+ * table sizes and bucket index. The map relinks its own chain nodes
+ * when it doubles, once it holds more keys than buckets.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.function.Function;
+
+// SeparateChaining Hash map class
+//
+// CONSTRUCTION: an approximate initial size or default of 101
+//
+// ******************PUBLIC OPERATIONS*********************
+// V get( k )                     --> Return the value for k, or null
+// V getOrDefault( k, d )         --> Return the value for k, or d
+// boolean containsKey( k )       --> Return true if k is present
+// V put( k, v )                  --> Map k to v, returning the old value
+// V putIfAbsent( k, v )          --> Map k to v unless k is present
+// V computeIfAbsent( k, f )      --> Map k to f( k ) unless k is present
+// V remove( k )                  --> Remove k, returning its value
+// int size( )                    --> Return the number of keys
+// void makeEmpty( )              --> Remove all keys
+
+public class SeparateChainingHashMap<K, V> {
+    /**
+     * Construct the hash map.
+     */
+    public SeparateChainingHashMap() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Construct the hash map.
+     *
+     * @param size approximate table size.
+     */
+    public SeparateChainingHashMap(int size) {
+        theLists = newTable(STRATEGY.tableSize(size));
+    }
+
+    /**
+     * Find the value mapped to a key.
+     *
+     * @param key the key to search for.
+     * @return the value, or null if key is not present.
+     */
+    public V get(Object key) {
+        Node<K, V> n = find(key);
+        return n == null ? null : n.value;
+    }
+
+    /**
+     * Find the value mapped to a key.
+     *
+     * @param key          the key to search for.
+     * @param defaultValue the value to return if key is not present.
+     * @return the value, or defaultValue if key is not present.
+     */
+    public V getOrDefault(Object key, V defaultValue) {
+        Node<K, V> n = find(key);
+        return n == null ? defaultValue : n.value;
+    }
+
+    /**
+     * Find a key in the hash map.
+     *
+     * @param key the key to search for.
+     * @return true if key is found.
+     */
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Map a key to a value, replacing any value it had.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @return the previous value, or null if key was not present.
+     */
+    public V put(K key, V value) {
+        int hash = key.hashCode();
+        Node<K, V> n = find(key, hash);
+        if (n != null) {
+            V old = n.value;
+            n.value = value;
+            return old;
+        }
+        add(key, hash, value);
+        return null;
+    }
+
+    /**
+     * Map a key to a value if the key is not already present.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @return the existing value, or null if value was added.
+     */
+    public V putIfAbsent(K key, V value) {
+        int hash = key.hashCode();
+        Node<K, V> n = find(key, hash);
+        if (n != null)
+            return n.value;
+        add(key, hash, value);
+        return null;
+    }
+
+    /**
+     * Return the value mapped to a key, first computing and adding it if
+     * the key is not present. A null result is not added.
+     *
+     * @param key             the key.
+     * @param mappingFunction computes the value for a missing key.
+     * @return the existing or computed value.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        int hash = key.hashCode();
+        Node<K, V> n = find(key, hash);
+        if (n != null)
+            return n.value;
+        V value = mappingFunction.apply(key);
+        if (value != null)
+            add(key, hash, value);
+        return value;
+    }
+
+    /**
+     * Remove a key from the hash map.
+     *
+     * @param key the key to remove.
+     * @return the value it was mapped to, or null if key was not present.
+     */
+    public V remove(Object key) {
+        int hash = key.hashCode();
+        int i = myhash(hash, theLists.length);
+        //Walk the chain, remembering the node in front of the one to unlink.
+        Node<K, V> prev = null;
+        for (Node<K, V> n = theLists[i]; n != null; prev = n, n = n.next) {
+            if (n.hash == hash && key.equals(n.key)) {
+                if (prev == null)
+                    theLists[i] = n.next;
+                else
+                    prev.next = n.next;
+                currentSize--;
+                return n.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the number of keys in the hash map.
+     *
+     * @return the number of keys.
+     */
+    public int size() {
+        return currentSize;
+    }
+
+    /**
+     * Make the hash map logically empty.
+     */
+    public void makeEmpty() {
+        for (int i = 0; i < theLists.length; i++)
+            theLists[i] = null;
+        currentSize = 0;
+    }
+
+    /*
+    This method adds a key that is known not to be present, then rehashes
+    if the insertion exceeds the table size.
+     */
+    private void add(K key, int hash, V value) {
+        int i = myhash(hash, theLists.length);
+        theLists[i] = new Node<>(key, hash, value, theLists[i]);
+        if (++currentSize > theLists.length)
+            rehash();
+    }
+
+    /*
+    This method returns the node holding key, or null.
+     */
+    private Node<K, V> find(Object key) {
+        return find(key, key.hashCode());
+    }
+
+    private Node<K, V> find(Object key, int hash) {
+        for (Node<K, V> n = theLists[myhash(hash, theLists.length)]; n != null; n = n.next)
+            if (n.hash == hash && key.equals(n.key))
+                return n;
+        return null;
+    }
+
+    /*
+    This method doubles the table size and relinks every node into the new
+    table using its cached hash. The keys are already distinct, so nothing is
+    compared.
+     */
+    private void rehash() {
+        Node<K, V>[] oldLists = theLists;
+        theLists = newTable(STRATEGY.tableSize(2 * oldLists.length));
+        for (Node<K, V> head : oldLists) {
+            Node<K, V> n = head;
+            while (n != null) {
+                Node<K, V> next = n.next;
+                int i = myhash(n.hash, theLists.length);
+                n.next = theLists[i];
+                theLists[i] = n;
+                n = next;
+            }
+        }
+    }
+
+    private static int myhash(int hash, int tableSize) {
+        return STRATEGY.index(hash, tableSize);
+    }
+
+    /*
+    This method creates an empty table of chains. Java cannot create an array
+    of a generic type, so a raw one is created and cast.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] newTable(int length) {
+        return (Node<K, V>[]) new Node<?, ?>[length];
+    }
+
+    /*
+    A chain node holding one key, its cached hash and its value.
+     */
+    private static final class Node<K, V> {
+        final K key;
+        final int hash;
+        V value;
+        Node<K, V> next;
+
+        Node(K key, int hash, V value, Node<K, V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private static final int DEFAULT_TABLE_SIZE = 101;
+    private static final HashStrategy STRATEGY = HashStrategy.modPrime();
+
+    /**
+     * The array of chains. Empty buckets are null.
+     */
+    private Node<K, V>[] theLists;
+    private int currentSize;
+}
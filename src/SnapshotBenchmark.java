@@ -0,0 +1,103 @@
+/**********************************************************************
+ * @file SnapshotBenchmark.java
+ * @brief This program compares cold starts from the volcano CSV with
+ * cold starts from a VolcanoSnapshot. Each start runs in a fresh JVM
+ * and is timed twice: from main() until the table answers its first
+ * query, and as the wall time of the whole process.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+public class SnapshotBenchmark {
+    // Usage: java SnapshotBenchmark <input file> [forks]
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 1 && args[0].equals(WORKER_FLAG)) {
+            runWorker(args[1], args[2]);
+            return;
+        }
+        if (args.length < 1) {
+            System.err.println("Usage: java SnapshotBenchmark <input file> [forks]");
+            System.exit(1);
+        }
+        String inputFileName = args[0];
+        int forks = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File snapshot = File.createTempFile("volcanoes", ".vsnap");
+        snapshot.deleteOnExit();
+        ArrayList<Volcano> records = MappedCsvLoader.load(inputFileName, Integer.MAX_VALUE);
+        VolcanoSnapshot.save(snapshot.getPath(), records, buildTable(records));
+        System.out.println("Records=" + records.size() + ", CSV Bytes=" + new File(inputFileName).length()
+                + ", Snapshot Bytes=" + snapshot.length());
+
+        //Alternate the two kinds of start so both see the same machine state.
+        long[] ready = new long[2], wall = new long[2];
+        String[] modes = {CSV, SNAPSHOT};
+        for (int f = 0; f < forks; f++) {
+            for (int m = 0; m < modes.length; m++) {
+                String file = modes[m].equals(CSV) ? inputFileName : snapshot.getPath();
+                long start = System.nanoTime();
+                ready[m] += fork(modes[m], file);
+                wall[m] += System.nanoTime() - start;
+            }
+        }
+        for (int m = 0; m < modes.length; m++)
+            System.out.println(modes[m] + ": Forks=" + forks + ", Ready Time(ns)=" + ready[m] / forks
+                    + ", Process Time(ns)=" + wall[m] / forks);
+        snapshot.delete();
+    }
+
+    // Runs one cold start in a fresh JVM and returns the time it reported.
+    private static long fork(String mode, String file) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process p = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                SnapshotBenchmark.class.getName(), WORKER_FLAG, mode, file).redirectErrorStream(true).start();
+        long ready = -1;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("READY "))
+                    ready = Long.parseLong(line.substring(6));
+                else
+                    System.out.println(line);
+            }
+        }
+        if (p.waitFor() != 0 || ready < 0)
+            throw new IOException("Fork exited with status " + p.exitValue());
+        return ready;
+    }
+
+    // Loads the records and table, answers one query and prints the time taken.
+    private static void runWorker(String mode, String file) throws IOException {
+        long start = System.nanoTime();
+        ArrayList<Volcano> records;
+        SeparateChainingHashTable<Volcano> table;
+        if (mode.equals(CSV)) {
+            records = MappedCsvLoader.load(file, Integer.MAX_VALUE);
+            table = buildTable(records);
+        } else {
+            VolcanoSnapshot snapshot = VolcanoSnapshot.load(file);
+            records = snapshot.getRecords();
+            table = snapshot.getTable();
+        }
+        if (!records.isEmpty() && !table.contains(records.get(records.size() / 2)))
+            throw new IllegalStateException("The first query missed");
+        System.out.println("READY " + (System.nanoTime() - start));
+    }
+
+    private static SeparateChainingHashTable<Volcano> buildTable(ArrayList<Volcano> records) {
+        SeparateChainingHashTable<Volcano> table = new SeparateChainingHashTable<>();
+        for (Volcano v : records)
+            table.insert(v);
+        return table;
+    }
+
+    private static final String WORKER_FLAG = "--worker";
+    private static final String CSV = "CSV";
+    private static final String SNAPSHOT = "Snapshot";
+}
@@ -0,0 +1,178 @@
+/**********************************************************************
+ * @file StringDictionary.java
+ * @brief This program implements the StringDictionary class. It gives
+ * each distinct string a small int code and keeps one String instance
+ * per code, so the loaders can intern the volcano columns that repeat a
+ * few dozen values (region, country, location, type, status and last
+ * known eruption). Interned fields are equal exactly when they are the
+ * same instance, so String.equals stops at its identity check. The
+ * codes live in a SeparateChainingHashMap.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// StringDictionary class
+//
+// CONSTRUCTION: an approximate number of distinct strings or default of 101
+//
+// ******************PUBLIC OPERATIONS*********************
+// int code( s )          --> The code of s, adding s if it is new
+// String intern( s )     --> The dictionary's instance equal to s
+// int lookup( s )        --> The code of s, or -1 if it is absent
+// String get( code )     --> The string with a code
+// int size( )            --> The number of distinct strings
+//
+// A dictionary is not thread-safe; threads that share one must lock it.
+
+public class StringDictionary {
+    /**
+     * Construct the dictionary.
+     */
+    public StringDictionary() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Construct the dictionary.
+     *
+     * @param size approximate number of distinct strings.
+     */
+    public StringDictionary(int size) {
+        codes = new SeparateChainingHashMap<>(size);
+        strings = new String[Math.max(1, size)];
+    }
+
+    /**
+     * Return the code of a string, adding it if it is not yet present.
+     * Codes are handed out from 0 in the order strings are added.
+     *
+     * @param s the string.
+     * @return its code.
+     */
+    public int code(String s) {
+        Integer code = codes.get(s);
+        return code != null ? code : add(s);
+    }
+
+    /**
+     * Return the dictionary's instance of a string, adding s if it is not
+     * yet present. Null is returned as it is.
+     *
+     * @param s the string, or null.
+     * @return the shared instance equal to s, or null.
+     */
+    public String intern(String s) {
+        if (s == null)
+            return null;
+        int code = code(s);
+        return strings[code];
+    }
+
+    /**
+     * Return the code of a string without adding it.
+     *
+     * @param s the string.
+     * @return its code, or -1 if it is not present.
+     */
+    public int lookup(String s) {
+        return codes.getOrDefault(s, -1);
+    }
+
+    /**
+     * Return the string with a code.
+     *
+     * @param code a code returned by code().
+     * @return the string.
+     * @throws IndexOutOfBoundsException if no string has the code.
+     */
+    public String get(int code) {
+        if (code < 0 || code >= size)
+            throw new IndexOutOfBoundsException("No string with code " + code);
+        return strings[code];
+    }
+
+    /**
+     * Return the number of distinct strings.
+     *
+     * @return the number of strings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the shared instance of the string in bytes[off, off + len),
+     * which must be ASCII. A string already in the dictionary is found
+     * without building a String, so a repeated field costs no allocation.
+     *
+     * @param bytes the characters, one byte each.
+     * @param off   the first byte.
+     * @param len   the number of bytes.
+     * @return the shared instance.
+     */
+    String intern(byte[] bytes, int off, int len) {
+        probe.set(bytes, off, len);
+        Integer code = codes.get(probe);
+        if (code == null)
+            code = add(new String(bytes, off, len, StandardCharsets.ISO_8859_1));
+        return strings[code];
+    }
+
+    /*
+    This method adds a string that is known not to be present and returns
+    its code.
+     */
+    private int add(String s) {
+        if (size == strings.length)
+            strings = Arrays.copyOf(strings, size * 2);
+        strings[size] = s;
+        codes.put(s, size);
+        return size++;
+    }
+
+    /*
+    A reusable key over a run of ASCII bytes. Its hash code is the one
+    String.hashCode() gives the same characters, and it equals a String with
+    the same characters, so it can look up the map's String keys. The map
+    calls equals() on the key it is given, never on the stored keys.
+     */
+    private static final class ByteKey {
+        private byte[] bytes;
+        private int off, len;
+
+        void set(byte[] bytes, int off, int len) {
+            this.bytes = bytes;
+            this.off = off;
+            this.len = len;
+        }
+
+        public int hashCode() {
+            int h = 0;
+            for (int i = off; i < off + len; i++)
+                h = 31 * h + bytes[i];
+            return h;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof String))
+                return false;
+            String s = (String) o;
+            if (s.length() != len)
+                return false;
+            for (int i = 0; i < len; i++)
+                if (s.charAt(i) != bytes[off + i])
+                    return false;
+            return true;
+        }
+    }
+
+    private static final int DEFAULT_SIZE = 101;
+
+    private final SeparateChainingHashMap<String, Integer> codes;
+    private final ByteKey probe = new ByteKey();
+    private String[] strings;
+    private int size;
+}
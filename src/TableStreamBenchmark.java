@@ -0,0 +1,91 @@
+/**********************************************************************
+ * @file TableStreamBenchmark.java
+ * @brief This program compares sequential and parallel streams over a
+ * SeparateChainingHashTable of volcanoes. The table is filled with the
+ * volcano CSV repeated under new volcano numbers, and each stream
+ * computes the mean elevation of every country and the number of
+ * volcanoes north of the equator. The parallel stream splits the table
+ * on ranges of buckets.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TableStreamBenchmark {
+    // Usage: java TableStreamBenchmark <input file> [records]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java TableStreamBenchmark <input file> [records]");
+            System.exit(1);
+        }
+        int records = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        ArrayList<Volcano> base = MappedCsvLoader.load(args[0], Integer.MAX_VALUE);
+        ArrayList<Volcano> copies = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            Volcano v = new Volcano(base.get(i % base.size()));
+            v.setNumber(v.getNumber() + "-" + i / base.size());
+            copies.add(v);
+        }
+        SeparateChainingHashTable<Volcano> table = new SeparateChainingHashTable<>();
+        table.insertAll(copies, true);
+        copies = null;
+
+        //Both streams must agree before either is timed.
+        if (!meanElevation(table.stream()).equals(meanElevation(table.parallelStream()))
+                || northern(table.stream()) != northern(table.parallelStream()))
+            System.out.println("Sequential and parallel results differ");
+
+        for (int pass = 0; pass < WARMUP; pass++)
+            sink += meanElevation(table.stream()).size() + meanElevation(table.parallelStream()).size()
+                    + northern(table.stream()) + northern(table.parallelStream());
+
+        long start = System.nanoTime();
+        for (int pass = 0; pass < PASSES; pass++)
+            sink += meanElevation(table.stream()).size();
+        long timeSequential = System.nanoTime();
+        for (int pass = 0; pass < PASSES; pass++)
+            sink += meanElevation(table.parallelStream()).size();
+        long timeParallel = System.nanoTime();
+        for (int pass = 0; pass < PASSES; pass++)
+            sink += northern(table.stream());
+        long timeSequentialCount = System.nanoTime();
+        for (int pass = 0; pass < PASSES; pass++)
+            sink += northern(table.parallelStream());
+        long timeParallelCount = System.nanoTime();
+
+        System.out.println("Records=" + table.size() + ", Processors=" + Runtime.getRuntime().availableProcessors());
+        report("Mean elevation by country", timeSequential - start, timeParallel - timeSequential);
+        report("Northern count", timeSequentialCount - timeParallel, timeParallelCount - timeSequentialCount);
+    }
+
+    // The mean elevation of the volcanoes of each country.
+    private static Map<String, Double> meanElevation(Stream<Volcano> volcanoes) {
+        return volcanoes.collect(Collectors.groupingBy(Volcano::getCountry,
+                Collectors.averagingInt(Volcano::getElevation)));
+    }
+
+    // The number of volcanoes north of the equator.
+    private static long northern(Stream<Volcano> volcanoes) {
+        return volcanoes.filter(v -> v.getLatitude() > 0).count();
+    }
+
+    // Prints the time per pass of each stream and the speedup.
+    private static void report(String name, long sequential, long parallel) {
+        System.out.println(name + ": Sequential(ms/pass)=" + sequential / PASSES / 1000000
+                + ", Parallel(ms/pass)=" + parallel / PASSES / 1000000
+                + ", Speedup=" + String.format("%.2f", (double) sequential / parallel));
+    }
+
+    private static final int WARMUP = 3;
+    private static final int PASSES = 10;
+
+    /**
+     * Results are added here so the JIT cannot drop the streams.
+     */
+    private static volatile double sink;
+}
@@ -0,0 +1,91 @@
+
+import java.util.concurrent.CyclicBarrier;
+
+public class TestConcurrentSeparateChainingHashTable {
+    private static final int NUMS = 2000000; //
+    private static final int GAP  =   37; // GAP is the step size
+
+    // Usage: java TestConcurrentSeparateChainingHashTable [max threads]
+    // Runs the TestSeparateChainingHashTable workload split across 1, 2, 4, 8, ...
+    // threads and prints the throughput of each phase.
+    public static void main( String [ ] args ) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt( args[ 0 ] )
+                : Math.max( 16, Runtime.getRuntime( ).availableProcessors( ) );
+
+        System.out.println( "Checking... (no more output means success)" );
+
+        for( int threads = 1; threads <= maxThreads; threads *= 2 )
+            run( threads );
+    }
+
+    // Runs every phase of the workload with the given number of threads.
+    private static void run( int threads ) throws Exception {
+        ConcurrentSeparateChainingHashTable<Integer> H = new ConcurrentSeparateChainingHashTable<>( );
+
+        // Insert NUMS keys, but only NUMS/2 distinct keys
+        long insertTime = phase( threads, t -> {
+            int i = ( int ) ( ( long ) GAP * ( t + 1 ) % NUMS );
+            int step = ( int ) ( ( long ) GAP * threads % NUMS );
+            for( int k = t + 1; k < NUMS; k += threads, i = ( i + step ) % NUMS )
+                H.insert( i );
+        } );
+
+        // Remove the odd numbers
+        long removeTime = phase( threads, t -> {
+            for( int i = 1 + 2 * t; i < NUMS; i += 2 * threads )
+                H.remove( i );
+        } );
+
+        // Test if the even numbers are still there and the odd numbers are not
+        long findTime = phase( threads, t -> {
+            for( int i = 2 + 2 * t; i < NUMS; i += 2 * threads )
+                if( !H.contains( i ) )
+                    System.out.println( "Find fails " + i );
+            for( int i = 1 + 2 * t; i < NUMS; i += 2 * threads )
+                if( H.contains( i ) )
+                    System.out.println( "OOPS!!! " + i );
+        } );
+
+        if( H.size( ) != NUMS / 2 - 1 )
+            System.out.println( "Size is " + H.size( ) + ", expected " + ( NUMS / 2 - 1 ) );
+
+        System.out.println( "Threads=" + threads
+                + ", Insert ops/sec=" + opsPerSecond( NUMS - 1, insertTime )
+                + ", Remove ops/sec=" + opsPerSecond( NUMS / 2, removeTime )
+                + ", Search ops/sec=" + opsPerSecond( NUMS - 1, findTime ) );
+    }
+
+    // Starts the given number of threads on task together and returns the
+    // nanoseconds until the last one finished. The clock starts when the
+    // last thread reaches the barrier.
+    private static long phase( int threads, Task task ) throws Exception {
+        long [ ] startTime = new long[ 1 ];
+        CyclicBarrier start = new CyclicBarrier( threads, ( ) -> startTime[ 0 ] = System.nanoTime( ) );
+        Thread [ ] workers = new Thread[ threads ];
+        for( int t = 0; t < threads; t++ ) {
+            final int id = t;
+            workers[ t ] = new Thread( ( ) -> {
+                try {
+                    start.await( );
+                } catch( Exception e ) {
+                    throw new RuntimeException( e );
+                }
+                task.run( id );
+            } );
+            workers[ t ].start( );
+        }
+        for( Thread w : workers )
+            w.join( );
+        return System.nanoTime( ) - startTime[ 0 ];
+    }
+
+    // Converts an operation count and elapsed nanoseconds into operations per second.
+    private static long opsPerSecond( long ops, long nanos ) {
+        return ops * 1000000000L / Math.max( nanos, 1 );
+    }
+
+    // One thread's share of a phase.
+    private interface Task {
+        void run( int thread );
+    }
+}
@@ -1,18 +1,129 @@
+
 public class TestSeparateChainingHashTable {
+    private static final int NUMS = 2000000; //
+    private static final int GAP  =   37; // GAP is the step size
+
+    // Usage: java TestSeparateChainingHashTable [chaining | int | both | rehash | buckets | strategies [volcano csv] | iterate | engines [max load factor] | index <volcano csv>]
+    // With no argument only the SeparateChainingHashTable workload runs.
     public static void main( String [ ] args ) {
-        SeparateChainingHashTable<Integer> H = new SeparateChainingHashTable<>( );
+        String mode = args.length > 0 ? args[ 0 ] : "chaining";
+
+        System.out.println( "Checking... (no more output means success)" );
+
+        switch( mode ) {
+            case "chaining":
+                runChaining( new SeparateChainingHashTable<>( ), "SeparateChainingHashTable" );
+                break;
+            case "int":
+                runIntSet( );
+                break;
+            case "both":
+                runChaining( new SeparateChainingHashTable<>( ), "SeparateChainingHashTable" );
+                runIntSet( );
+                break;
+            case "rehash":
+                runInsertLatency( false );
+                runInsertLatency( true );
+                break;
+            case "buckets":
+                runChaining( new SeparateChainingHashTable<>( 101, false,
+                        SeparateChainingHashTable.BucketType.LINKED_LIST ), "LinkedList buckets" );
+                runChaining( new SeparateChainingHashTable<>( 101, false,
+                        SeparateChainingHashTable.BucketType.ARRAY ), "Array buckets" );
+                runCollisions( SeparateChainingHashTable.BucketType.LINKED_LIST );
+                runCollisions( SeparateChainingHashTable.BucketType.ARRAY );
+                break;
+            case "strategies":
+                HashStrategy [ ] strategies = { HashStrategy.modPrime( ), HashStrategy.mixPowerOfTwo( ), HashStrategy.seeded( ) };
+                for( HashStrategy strategy : strategies )
+                    runChaining( new SeparateChainingHashTable<>( 101, strategy ), "Integer keys, " + strategy );
+                if( args.length > 1 )
+                    for( HashStrategy strategy : strategies )
+                        runVolcanoKeys( args[ 1 ], strategy );
+                break;
+            case "iterate":
+                for( SeparateChainingHashTable.BucketType bucketType : SeparateChainingHashTable.BucketType.values( ) ) {
+                    runIteration( bucketType, false );
+                    runIteration( bucketType, true );
+                }
+                break;
+            case "engines":
+                for( HashTable.Engine engine : HashTable.Engine.values( ) ) {
+                    HashTable<Integer> table = args.length > 1
+                            ? engine.create( 101, Double.parseDouble( args[ 1 ] ) ) : engine.create( 101 );
+                    runChaining( table, engine.toString( ), true );
+                }
+                break;
+            case "index":
+                if( args.length > 1 )
+                    runVolcanoIndex( args[ 1 ] );
+                else
+                    System.err.println( "Usage: java TestSeparateChainingHashTable index <volcano csv>" );
+                break;
+            default:
+                System.err.println( "Usage: java TestSeparateChainingHashTable [chaining | int | both | rehash | buckets | strategies [volcano csv] | iterate | engines [max load factor] | index <volcano csv>]" );
+        }
+    }
 
+    // Runs the workload against the given SeparateChainingHashTable<Integer>.
+    private static void runChaining( SeparateChainingHashTable<Integer> H, String name ) {
+        runChaining( H, name, false );
+    }
+
+    // Runs the workload against any HashTable<Integer>, optionally printing
+    // the shape of the full table: its load factor and probe lengths.
+    private static void runChaining( HashTable<Integer> H, String name, boolean showShape ) {
+        long heapBefore = usedHeap( );
         long startTime = System.currentTimeMillis( );
 
-        final int NUMS = 2000000; //
-        final int GAP  =   37; // GAP is the step size
+        // Insert NUMS keys, but only NUMS/2 distinct keys
+        for( int i = GAP; i != 0; i = ( i + GAP ) % NUMS )
+            H.insert( i );
 
-        System.out.println( "Checking... (no more output means success)" );
+        // Measure the full table, leaving the collection out of the elapsed time
+        long pauseTime = System.currentTimeMillis( );
+        long heapAfter = usedHeap( );
+        String shape = showShape ? H.shapeSummary( ) : null;
+        startTime += System.currentTimeMillis( ) - pauseTime;
+
+        // Remove the even numbers
+        for( int i = 1; i < NUMS; i+= 2 )
+            H.remove( i );
+
+        // Test if the even numbers are still there
+        for( int i = 2; i < NUMS; i+=2 )
+            if( !H.contains( i ) )
+                System.out.println( "Find fails " + i );
+
+        // Test if the odd numbers are still there
+        for( int i = 1; i < NUMS; i+=2 ) {
+            if( H.contains( i ) )
+                System.out.println( "OOPS!!! " +  i  );
+        }
+
+        long endTime = System.currentTimeMillis( );
+
+        report( name, endTime - startTime, heapAfter - heapBefore );
+        if( shape != null )
+            System.out.println( name + ": " + shape );
+    }
+
+    // Runs the same workload against the primitive IntHashSet.
+    private static void runIntSet( ) {
+        long heapBefore = usedHeap( );
+        long startTime = System.currentTimeMillis( );
+
+        IntHashSet H = new IntHashSet( );
 
         // Insert NUMS keys, but only NUMS/2 distinct keys
         for( int i = GAP; i != 0; i = ( i + GAP ) % NUMS )
             H.insert( i );
 
+        // Measure the full table, leaving the collection out of the elapsed time
+        long pauseTime = System.currentTimeMillis( );
+        long heapAfter = usedHeap( );
+        startTime += System.currentTimeMillis( ) - pauseTime;
+
         // Remove the even numbers
         for( int i = 1; i < NUMS; i+= 2 )
             H.remove( i );
@@ -30,6 +141,250 @@ public class TestSeparateChainingHashTable {
 
         long endTime = System.currentTimeMillis( );
 
-        System.out.println( "Elapsed time: " + (endTime - startTime) );
+        report( "IntHashSet", endTime - startTime, heapAfter - heapBefore );
+    }
+
+    // Times every insert of the distinct GAP keys and prints the tail latency,
+    // which is where a stop-the-world rehash shows up.
+    private static void runInsertLatency( boolean incremental ) {
+        SeparateChainingHashTable<Integer> H = new SeparateChainingHashTable<>( 101, incremental );
+        long [ ] latency = new long[ NUMS / 2 ];
+        int n = 0;
+
+        for( int i = GAP; n < latency.length; i = ( i + GAP ) % NUMS ) {
+            long start = System.nanoTime( );
+            H.insert( i );
+            latency[ n++ ] = System.nanoTime( ) - start;
+        }
+
+        // Check that nothing was lost while buckets were being moved
+        for( int i = GAP, k = 0; k < latency.length; i = ( i + GAP ) % NUMS, k++ )
+            if( !H.contains( i ) )
+                System.out.println( "Find fails " + i );
+
+        java.util.Arrays.sort( latency );
+        System.out.println( ( incremental ? "Incremental" : "Stop-the-world" ) + " rehash: insert latency (ns) p50="
+                + latency[ n / 2 ] + ", p99.9=" + latency[ ( int ) ( n * 0.999 ) ] + ", max=" + latency[ n - 1 ] );
+    }
+
+    // Inserts, finds and removes keys whose hash codes fall into a few
+    // clusters, so every bucket holds a long chain.
+    private static void runCollisions( SeparateChainingHashTable.BucketType bucketType ) {
+        final int KEYS = 200000;
+        SeparateChainingHashTable<ClusteredKey> H = new SeparateChainingHashTable<>( 101, false, bucketType );
+        long startTime = System.currentTimeMillis( );
+
+        for( int i = 0; i < KEYS; i++ )
+            H.insert( new ClusteredKey( i ) );
+        for( int i = 0; i < KEYS; i++ )
+            if( !H.contains( new ClusteredKey( i ) ) )
+                System.out.println( "Find fails " + i );
+        for( int i = 0; i < KEYS; i++ )
+            H.remove( new ClusteredKey( i ) );
+        for( int i = 0; i < KEYS; i++ )
+            if( H.contains( new ClusteredKey( i ) ) )
+                System.out.println( "OOPS!!! " + i );
+
+        long endTime = System.currentTimeMillis( );
+        System.out.println( "Clustered keys, " + bucketType + " buckets: Elapsed time: " + ( endTime - startTime ) );
+    }
+
+    // Inserts, finds and removes every volcano in the CSV file many times
+    // over, so the per-operation cost of the strategy dominates.
+    private static void runVolcanoKeys( String fileName, HashStrategy strategy ) {
+        final int ROUNDS = 500;
+        Volcano [ ] volcanoes;
+        try {
+            volcanoes = MappedCsvLoader.load( fileName, Integer.MAX_VALUE ).toArray( new Volcano[ 0 ] );
+        } catch( java.io.IOException e ) {
+            System.out.println( e.getMessage( ) );
+            return;
+        }
+        long startTime = System.currentTimeMillis( );
+
+        for( int round = 0; round < ROUNDS; round++ ) {
+            SeparateChainingHashTable<Volcano> H = new SeparateChainingHashTable<>( 101, strategy );
+            for( Volcano v : volcanoes )
+                H.insert( v );
+            for( Volcano v : volcanoes )
+                if( !H.contains( v ) )
+                    System.out.println( "Find fails " + v );
+            for( Volcano v : volcanoes )
+                H.remove( v );
+        }
+
+        long endTime = System.currentTimeMillis( );
+        System.out.println( "Volcano keys, " + strategy + ": Elapsed time: " + ( endTime - startTime ) );
+    }
+
+    // Checks VolcanoIndex lookups, intersections and unions against a linear
+    // scan of the records, after some removes and with some values missing,
+    // and checks that the lists it hands out cannot be changed.
+    private static void runVolcanoIndex( String fileName ) {
+        java.util.List<Volcano> volcanoes;
+        try {
+            volcanoes = MappedCsvLoader.load( fileName, Integer.MAX_VALUE );
+        } catch( java.io.IOException e ) {
+            System.out.println( e.getMessage( ) );
+            return;
+        }
+        long startTime = System.currentTimeMillis( );
+
+        VolcanoIndex index = new VolcanoIndex( VolcanoIndex.Attribute.values( ) );
+        for( int i = 0; i < volcanoes.size( ); i++ ) {
+            Volcano v = new Volcano( volcanoes.get( i ) );
+            if( i % 7 == 0 )
+                v.setCountry( null );
+            index.insert( v );
+        }
+        for( int id = 0; id < volcanoes.size( ); id += 5 )
+            index.remove( id );
+
+        for( VolcanoIndex.Attribute a : VolcanoIndex.Attribute.values( ) ) {
+            java.util.Set<String> values = new java.util.HashSet<>( );
+            for( Volcano v : volcanoes )
+                values.add( a.of( v ) );
+            values.add( null );
+            values.add( "No such value" );
+            for( String value : values )
+                checkPostings( index, volcanoes.size( ), a + "=" + value, index.lookup( a, value ),
+                        v -> java.util.Objects.equals( a.of( v ), value ) );
+        }
+
+        // Each remaining record's own type and country, and its status or that of its neighbour
+        for( int id = 1; id < volcanoes.size( ); id += 97 ) {
+            Volcano v = index.get( id ), w = volcanoes.get( id - 1 );
+            if( v == null )
+                continue;
+            String type = v.getType( ), country = v.getCountry( );
+            String status = v.getStatus( ), other = w.getStatus( );
+            checkPostings( index, volcanoes.size( ), "and " + type + ", " + country,
+                    index.and( index.lookup( VolcanoIndex.Attribute.TYPE, type ),
+                            index.lookup( VolcanoIndex.Attribute.COUNTRY, country ) ),
+                    x -> java.util.Objects.equals( x.getType( ), type )
+                            && java.util.Objects.equals( x.getCountry( ), country ) );
+            checkPostings( index, volcanoes.size( ), "or " + status + ", " + other,
+                    index.or( index.lookup( VolcanoIndex.Attribute.STATUS, status ),
+                            index.lookup( VolcanoIndex.Attribute.STATUS, other ) ),
+                    x -> java.util.Objects.equals( x.getStatus( ), status )
+                            || java.util.Objects.equals( x.getStatus( ), other ) );
+        }
+
+        PostingList [ ] handedOut = { index.lookup( VolcanoIndex.Attribute.COUNTRY, "No such value" ),
+                index.lookup( VolcanoIndex.Attribute.TYPE, index.get( 1 ).getType( ) ), index.or( ) };
+        for( PostingList postings : handedOut ) {
+            try {
+                postings.add( Integer.MAX_VALUE );
+                System.out.println( "OOPS!!! A posting list from the index could be changed" );
+            } catch( UnsupportedOperationException e ) {
+                // Expected
+            }
+        }
+
+        // A record changed after insert still leaves the lists it was indexed under
+        Volcano changed = index.get( 1 );
+        String oldCountry = changed.getCountry( );
+        changed.setCountry( "Changed" );
+        if( !index.remove( 1 ) || index.lookup( VolcanoIndex.Attribute.COUNTRY, oldCountry ).contains( 1 ) )
+            System.out.println( "OOPS!!! A changed record was not removed from the index" );
+
+        long endTime = System.currentTimeMillis( );
+        System.out.println( "Volcano index, " + index.size( ) + " records: Elapsed time: " + ( endTime - startTime ) );
+    }
+
+    // Compares a posting list with the IDs, below ids, of the stored records that match.
+    private static void checkPostings( VolcanoIndex index, int ids, String query, PostingList postings,
+                                       java.util.function.Predicate<Volcano> matches ) {
+        PostingList expected = new PostingList( );
+        for( int id = 0; id < ids; id++ )
+            if( index.get( id ) != null && matches.test( index.get( id ) ) )
+                expected.add( id );
+        if( !java.util.Arrays.equals( postings.toArray( ), expected.toArray( ) ) )
+            System.out.println( "Find fails " + query + ": " + postings.size( ) + " IDs, expected " + expected.size( ) );
+    }
+
+    // Checks that the iterator, a sequential stream and a parallel stream each
+    // see every item once, and that an iterator fails fast. The clustered keys
+    // put tree buckets in the array-bucket tables.
+    private static void runIteration( SeparateChainingHashTable.BucketType bucketType, boolean incremental ) {
+        final int KEYS = 100000;
+        SeparateChainingHashTable<ClusteredKey> H = new SeparateChainingHashTable<>( 101, incremental, bucketType );
+        long startTime = System.currentTimeMillis( );
+
+        // Keep the keys that are not multiples of 3
+        long expectedSum = 0;
+        for( int i = 0; i < KEYS; i++ ) {
+            H.insert( new ClusteredKey( i ) );
+            if( i % 3 != 0 )
+                expectedSum += i;
+        }
+        for( int i = 0; i < KEYS; i += 3 )
+            H.remove( new ClusteredKey( i ) );
+
+        boolean [ ] seen = new boolean[ KEYS ];
+        int count = 0;
+        for( ClusteredKey k : H ) {
+            if( seen[ k.value ] || k.value % 3 == 0 )
+                System.out.println( "OOPS!!! " + k.value );
+            seen[ k.value ] = true;
+            count++;
+        }
+        if( count != H.size( ) )
+            System.out.println( "Iterator saw " + count + " of " + H.size( ) );
+        if( H.spliterator( ).estimateSize( ) != H.size( ) )
+            System.out.println( "Spliterator size " + H.spliterator( ).estimateSize( ) + " != " + H.size( ) );
+
+        long sequential = H.stream( ).mapToLong( k -> k.value ).sum( );
+        long parallel = H.parallelStream( ).mapToLong( k -> k.value ).sum( );
+        if( sequential != expectedSum || parallel != expectedSum || H.parallelStream( ).count( ) != H.size( ) )
+            System.out.println( "Stream sums " + sequential + ", " + parallel + " != " + expectedSum );
+
+        java.util.Iterator<ClusteredKey> it = H.iterator( );
+        it.next( );
+        H.insert( new ClusteredKey( KEYS ) );
+        try {
+            it.next( );
+            System.out.println( "Iterator did not fail fast" );
+        } catch( java.util.ConcurrentModificationException e ) {
+            // Expected
+        }
+
+        long endTime = System.currentTimeMillis( );
+        System.out.println( "Iteration, " + bucketType + " buckets" + ( incremental ? ", incremental rehash" : "" )
+                + ": Elapsed time: " + ( endTime - startTime ) );
+    }
+
+    // A key with a poor hash code: 1,000 consecutive values share each hash.
+    private static final class ClusteredKey implements Comparable<ClusteredKey> {
+        private final int value;
+
+        ClusteredKey( int value ) {
+            this.value = value;
+        }
+
+        public boolean equals( Object o ) {
+            return o instanceof ClusteredKey && ( ( ClusteredKey ) o ).value == value;
+        }
+
+        public int hashCode( ) {
+            return value / 1000;
+        }
+
+        public int compareTo( ClusteredKey other ) {
+            return Integer.compare( value, other.value );
+        }
+    }
+
+    // Prints the elapsed time and the heap retained by the full table.
+    private static void report( String name, long elapsed, long heap ) {
+        System.out.println( name + ": Elapsed time: " + elapsed
+                + ", Heap used by full table (KB): " + heap / 1024 );
+    }
+
+    // Returns the heap in use after asking for a collection.
+    private static long usedHeap( ) {
+        Runtime rt = Runtime.getRuntime( );
+        System.gc( );
+        return rt.totalMemory( ) - rt.freeMemory( );
     }
 }
@@ -7,6 +7,8 @@
  * @author Wynne Greene
  * @date: December 5, 2024
  ***********************************************************************/
+import java.util.Objects;
+
 public class Volcano implements Comparable<Volcano> {
     private String region; //Region of volcano
     private String number; //Number given by scientists
@@ -18,7 +20,8 @@ public class Volcano implements Comparable<Volcano> {
     private Integer elevation; //Elevation in meters
     private String type; //Type of volcano
     private String status; //Current status of the volcano
-    private String lastKnownEruption;
+    private String lastKnownEruption; //Code for the last known eruption
+    private int hash; //Cached hash code, or 0 if not computed yet
 
 
     //Default constructor
@@ -54,73 +57,104 @@ public class Volcano implements Comparable<Volcano> {
 
     //Copy constructor
     public Volcano(Volcano v) {
-        this.region = v.region;
-        this.number = v.number;
-        this.name = v.name;
-        this.country = v.country;
-        this.location = v.location;
-        this.latitude = v.latitude;
-        this.longitude = v.longitude;
-        this.elevation = v.elevation;
-        this.type = v.type;
-        this.status = v.status;
-        this.lastKnownEruption = v.lastKnownEruption;
+        this.region = v.getRegion();
+        this.number = v.getNumber();
+        this.name = v.getName();
+        this.country = v.getCountry();
+        this.location = v.getLocation();
+        this.latitude = v.getLatitude();
+        this.longitude = v.getLongitude();
+        this.elevation = v.getElevation();
+        this.type = v.getType();
+        this.status = v.getStatus();
+        this.lastKnownEruption = v.getLastKnownEruption();
     }
 
     //This method prints out the string representation of the object.
     public String toString() {
         String data = "";
-        data += "(" + number + "/ "+country+") " +  name + " [region: " + region + ", location: "
-                + location + ", latitude: " + latitude + ", longitude: " + longitude + ", elevation: "
-                + elevation + ", type: " + type + ", status: " + status + ", Last Known Eruption: " + lastKnownEruption;
+        data += "(" + getNumber() + "/ "+getCountry()+") " +  getName() + " [region: " + getRegion() + ", location: "
+                + getLocation() + ", latitude: " + getLatitude() + ", longitude: " + getLongitude() + ", elevation: "
+                + getElevation() + ", type: " + getType() + ", status: " + getStatus() + ", Last Known Eruption: " + getLastKnownEruption();
         return data;
     }
 
-    //This method returns whether or not two objects are equal, based off their
-    //elevation variable.
-    public boolean equals(Volcano v) {
-        //Compare each variable.
-        if(!this.region.equals(v.region))
-            return false;
-        if(!this.number.equals(v.number))
-            return false;
-        if(!this.name.equals(v.name))
-            return false;
-        if(!this.country.equals(v.country))
-            return false;
-        if(!this.location.equals(location))
-            return false;
-        if(Double.compare(this.latitude, v.latitude)!=0)
-            return false;
-        if(Double.compare(this.longitude, v.longitude)!=0)
-            return false;
-        if(Integer.compare(this.elevation, v.elevation)!=0)
-            return false;
-        if(!this.type.equals(v.type))
-            return false;
-        if(!this.status.equals(v.status))
+    //This method returns whether or not two objects are equal, based off all
+    //of their fields. The fields are read through the getters, so read-only
+    //views such as VolcanoStore.View compare like ordinary volcanoes.
+    @Override
+    public boolean equals(Object o) {
+        if(this == o)
+            return true;
+        if(!(o instanceof Volcano))
             return false;
-        if(!this.lastKnownEruption.equals(v.lastKnownEruption))
+        Volcano v = (Volcano) o;
+        //Unequal hash codes rule out equality without comparing any field.
+        if(hashCode() != v.hashCode())
             return false;
-        return true;
+        //Compare each variable, the ones that tell volcanoes apart first.
+        //Interned text fields are usually the same instance, so the rest
+        //stop at the identity check.
+        return Objects.equals(getNumber(), v.getNumber())
+                && Objects.equals(getName(), v.getName())
+                && Objects.equals(getRegion(), v.getRegion())
+                && Objects.equals(getCountry(), v.getCountry())
+                && Objects.equals(getLocation(), v.getLocation())
+                && Objects.equals(getLatitude(), v.getLatitude())
+                && Objects.equals(getLongitude(), v.getLongitude())
+                && Objects.equals(getElevation(), v.getElevation())
+                && Objects.equals(getType(), v.getType())
+                && Objects.equals(getStatus(), v.getStatus())
+                && Objects.equals(getLastKnownEruption(), v.getLastKnownEruption());
+    }
+
+    //This method returns a hash code built from the same fields as equals. It is
+    //computed once and cached; every setter clears the cache. A Volcano should not
+    //be changed while it is stored in a hash table. Like String, the cache is one
+    //field read once into a local, so a thread that sees another thread's write
+    //sees the whole hash; a hash that really is 0 is just recomputed each time.
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if(h == 0) {
+            h = Objects.hash(getRegion(), getNumber(), getName(), getCountry(), getLocation(), getLatitude(),
+                    getLongitude(), getElevation(), getType(), getStatus(), getLastKnownEruption());
+            hash = h;
+        }
+        return h;
     }
 
     /*This method compares two objects. This method returns a negative number if the object
     is less than the object passed as a parameter, a positive number if the object is
-    greater than the object passed as a parameter, and 0 if the objects are equal.*/
+    greater than the object passed as a parameter, and 0 if the objects are equal.
+    Volcanoes are ordered by elevation and then by the remaining fields, so compareTo
+    returns 0 exactly when equals returns true.*/
     @Override
     public int compareTo(Volcano obj) {
-        int x = this.getElevation().compareTo(obj.getElevation());
-        //If the objects are equal, check their other fields.
-        if(x==0) {
-            if(!this.equals(obj))
-                return -1;
+        int x = compare(getElevation(), obj.getElevation());
+        //If the elevations are equal, check their other fields.
+        if(x == 0) x = compare(getNumber(), obj.getNumber());
+        if(x == 0) x = compare(getName(), obj.getName());
+        if(x == 0) x = compare(getRegion(), obj.getRegion());
+        if(x == 0) x = compare(getCountry(), obj.getCountry());
+        if(x == 0) x = compare(getLocation(), obj.getLocation());
+        if(x == 0) x = compare(getLatitude(), obj.getLatitude());
+        if(x == 0) x = compare(getLongitude(), obj.getLongitude());
+        if(x == 0) x = compare(getType(), obj.getType());
+        if(x == 0) x = compare(getStatus(), obj.getStatus());
+        if(x == 0) x = compare(getLastKnownEruption(), obj.getLastKnownEruption());
+        return x;
+    }
+
+    //This method compares two fields, ordering null before any value.
+    private static <T extends Comparable<T>> int compare(T a, T b) {
+        if(a == b)
             return 0;
-        }
-        else {
-            return x;
-        }
-        //Integer.compare(this.getElevation(), obj.getElevation());
+        if(a == null)
+            return -1;
+        if(b == null)
+            return 1;
+        return a.compareTo(b);
     }
 
     //These are the getter methods for each variable.
@@ -171,44 +205,55 @@ public class Volcano implements Comparable<Volcano> {
     //The following are the setter methods for each variable.
     public void setRegion(String region) {
         this.region = region;
+        hash = 0;
     }
 
     public void setNumber(String number) {
         this.number = number;
+        hash = 0;
     }
 
     public void setName(String name) {
         this.name = name;
+        hash = 0;
     }
 
     public void setCountry(String country) {
         this.country = country;
+        hash = 0;
     }
 
     public void setLocation(String location) {
         this.location = location;
+        hash = 0;
     }
 
     public void setLatitude(Double latitude) {
         this.latitude = latitude;
+        hash = 0;
     }
 
     public void setLongitude(Double longitude) {
         this.longitude = longitude;
+        hash = 0;
     }
 
     public void setElevation(Integer elevation) {
         this.elevation = elevation;
+        hash = 0;
     }
 
     public void setType(String type) {
         this.type = type;
+        hash = 0;
     }
 
     public void setStatus(String status) {
         this.status = status;
+        hash = 0;
     }
     public void setLastKnownEruption(String lastKnownEruption) {
         this.lastKnownEruption = lastKnownEruption;
+        hash = 0;
     }
 }
\ No newline at end of file
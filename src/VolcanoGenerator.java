@@ -0,0 +1,173 @@
+/**********************************************************************
+ * @file VolcanoGenerator.java
+ * @brief This program implements the VolcanoGenerator class. It makes
+ * synthetic volcano datasets of any size from the real CSV. Each new
+ * record copies the region, country, location, type, status and last
+ * known eruption of a random real volcano, so those columns keep their
+ * real mix of values, and gets its own number, name and a position and
+ * elevation near the volcano it copies. A chosen fraction of the rows
+ * repeat earlier records, picked with a Zipf skew so a few records are
+ * repeated far more than the rest. Datasets can be written back out as
+ * CSV for Proj4 and the loaders.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// VolcanoGenerator class
+//
+// CONSTRUCTION: the real volcanoes, the duplicate skew and rate, and a seed
+//
+// ******************PUBLIC OPERATIONS*********************
+// ArrayList generate( rows )        --> A dataset of rows records
+// void writeCsv( file, records )    --> Write records in the CSV format
+
+public class VolcanoGenerator {
+    // Usage: java VolcanoGenerator <input file> <output file> <rows> [skew] [duplicate rate] [seed]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: java VolcanoGenerator <input file> <output file> <rows> [skew] [duplicate rate] [seed]");
+            System.exit(1);
+        }
+        int rows = Integer.parseInt(args[2]);
+        double skew = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_SKEW;
+        double duplicateRate = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : DEFAULT_SEED;
+
+        VolcanoGenerator generator = new VolcanoGenerator(MappedCsvLoader.load(args[0], Integer.MAX_VALUE),
+                skew, duplicateRate, seed);
+        long start = System.nanoTime();
+        ArrayList<Volcano> records = generator.generate(rows);
+        writeCsv(args[1], records);
+        System.out.println("Rows=" + records.size() + ", Distinct=" + distinctRows(rows, duplicateRate)
+                + ", Time(ms)=" + (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Construct the generator.
+     *
+     * @param base          the real volcanoes to copy columns from.
+     * @param skew          the Zipf exponent that picks which records are
+     *                      repeated; 0 repeats every record equally often.
+     * @param duplicateRate the fraction of rows, in [0, 1), that repeat an
+     *                      earlier record.
+     * @param seed          the seed; the same seed gives the same dataset.
+     */
+    public VolcanoGenerator(List<Volcano> base, double skew, double duplicateRate, long seed) {
+        if (base.isEmpty())
+            throw new IllegalArgumentException("No volcanoes to copy");
+        if (!(duplicateRate >= 0) || duplicateRate >= 1)
+            throw new IllegalArgumentException("Duplicate rate must be in [0, 1): " + duplicateRate);
+        this.base = base;
+        this.skew = skew;
+        this.duplicateRate = duplicateRate;
+        this.seed = seed;
+    }
+
+    /**
+     * Generate a dataset. Every distinct record appears at least once and
+     * the rows are in random order.
+     *
+     * @param rows the number of rows.
+     * @return the records.
+     */
+    public ArrayList<Volcano> generate(int rows) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int distinct = distinctRows(rows, duplicateRate);
+        ArrayList<Volcano> records = new ArrayList<>(rows);
+        for (int i = 0; i < distinct; i++)
+            records.add(newVolcano(i, random));
+        //The repeats are copies, as if the same record were read twice.
+        if (rows > distinct) {
+            ZipfDistribution popularity = new ZipfDistribution(distinct, skew, random.nextLong());
+            for (int i = distinct; i < rows; i++)
+                records.add(new Volcano(records.get(popularity.sample())));
+        }
+        //Fisher-Yates shuffle, so the repeats are spread through the file.
+        for (int i = rows - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            records.set(j, records.set(i, records.get(j)));
+        }
+        return records;
+    }
+
+    /**
+     * Write records to a CSV file with the volcano CSV header. Fields that
+     * hold a comma, quote or line break are quoted, and null fields are
+     * left empty.
+     *
+     * @param fileName the file to write.
+     * @param records  the records.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeCsv(String fileName, Iterable<Volcano> records) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(fileName), 1 << 16)) {
+            out.write(HEADER);
+            out.write('\n');
+            StringBuilder line = new StringBuilder();
+            for (Volcano v : records) {
+                line.setLength(0);
+                Object[] fields = {v.getRegion(), v.getNumber(), v.getName(), v.getCountry(), v.getLocation(),
+                        v.getLatitude(), v.getLongitude(), v.getElevation(), v.getType(), v.getStatus(),
+                        v.getLastKnownEruption()};
+                for (int c = 0; c < fields.length; c++) {
+                    if (c > 0)
+                        line.append(',');
+                    if (fields[c] != null)
+                        appendField(line, fields[c].toString());
+                }
+                line.append('\n');
+                out.append(line);
+            }
+        }
+    }
+
+    /*
+    This method builds distinct record i from a random real volcano.
+     */
+    private Volcano newVolcano(int i, SplittableRandom random) {
+        Volcano template = base.get(random.nextInt(base.size()));
+        double latitude = Math.max(-90, Math.min(90, template.getLatitude() + random.nextDouble(-0.5, 0.5)));
+        double longitude = Math.max(-180, Math.min(180, template.getLongitude() + random.nextDouble(-0.5, 0.5)));
+        int elevation = (int) Math.round(template.getElevation() * random.nextDouble(0.9, 1.1));
+        return new Volcano(template.getRegion(), "S" + i, template.getName() + " " + i, template.getCountry(),
+                template.getLocation(), Math.round(latitude * 1000) / 1000.0, Math.round(longitude * 1000) / 1000.0,
+                elevation, template.getType(), template.getStatus(), template.getLastKnownEruption());
+    }
+
+    /*
+    This method returns the number of distinct records in a dataset.
+     */
+    private static int distinctRows(int rows, double duplicateRate) {
+        if (rows <= 0)
+            return 0;
+        return Math.max(1, rows - (int) Math.round(rows * duplicateRate));
+    }
+
+    /*
+    This method appends s to line, quoted if it needs to be.
+     */
+    private static void appendField(StringBuilder line, String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            line.append(s);
+            return;
+        }
+        line.append('"').append(s.replace("\"", "\"\"")).append('"');
+    }
+
+    static final double DEFAULT_SKEW = 0.99;
+    static final long DEFAULT_SEED = 42;
+    private static final String HEADER = "Region,Number,Volcano Name,Country,Location,Latitude,Longitude,"
+            + "Elevation (m),Type,Status,Last Known Eruption";
+
+    private final List<Volcano> base;
+    private final double skew;
+    private final double duplicateRate;
+    private final long seed;
+}
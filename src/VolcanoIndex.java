@@ -0,0 +1,233 @@
+/**********************************************************************
+ * @file VolcanoIndex.java
+ * @brief This program implements the VolcanoIndex class. It stores
+ * Volcano records under integer record IDs and keeps a hash index on
+ * each chosen attribute. Each index maps an attribute value to the
+ * posting list of IDs that have it, so queries such as "all
+ * stratovolcanoes in Indonesia" intersect two posting lists instead of
+ * scanning every record. The indexes are updated on every insert and
+ * remove. Callers get read-only views of the index's posting lists, and
+ * a missing attribute value is indexed like any other value. Each
+ * record's indexed values are kept from its insert, so a remove takes
+ * the ID out of exactly the lists it was added to.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.function.Function;
+
+// VolcanoIndex class
+//
+// CONSTRUCTION: the attributes to index
+//
+// ******************PUBLIC OPERATIONS*********************
+// int insert( v )            --> Store v and return its record ID
+// boolean remove( id )       --> Remove the record with this ID
+// Volcano get( id )          --> Return the record with this ID, or null
+// PostingList lookup( a, s ) --> Return the IDs whose attribute a is s
+// PostingList and( ... )     --> Return the IDs in every posting list
+// PostingList or( ... )      --> Return the IDs in any posting list
+// List records( p )          --> Return the records for a posting list
+//
+// Stored records must not change: the index keeps the values a record had
+// when it was inserted, so a changed record is still found under those.
+
+public class VolcanoIndex {
+    /**
+     * The Volcano attributes that can be indexed.
+     */
+    public enum Attribute {
+        COUNTRY(Volcano::getCountry),
+        REGION(Volcano::getRegion),
+        TYPE(Volcano::getType),
+        STATUS(Volcano::getStatus),
+        LAST_KNOWN_ERUPTION(Volcano::getLastKnownEruption);
+
+        private final Function<Volcano, String> getter;
+
+        Attribute(Function<Volcano, String> getter) {
+            this.getter = getter;
+        }
+
+        /**
+         * Return this attribute's value for a volcano.
+         *
+         * @param v the volcano.
+         * @return the attribute value.
+         */
+        public String of(Volcano v) {
+            return getter.apply(v);
+        }
+    }
+
+    /**
+     * Construct an index over the given attributes.
+     *
+     * @param attributes the attributes to index.
+     */
+    public VolcanoIndex(Attribute... attributes) {
+        for (Attribute a : attributes)
+            indexes.put(a, new SeparateChainingHashMap<>());
+        this.attributes = indexes.keySet().toArray(new Attribute[0]);
+    }
+
+    /**
+     * Store a volcano and add it to every index.
+     *
+     * @param v the volcano to store.
+     * @return its record ID.
+     */
+    public int insert(Volcano v) {
+        int id = records.size();
+        Object[] keys = new Object[attributes.length];
+        //IDs only grow, so each posting list append is O(1).
+        for (int k = 0; k < attributes.length; k++) {
+            keys[k] = key(attributes[k].of(v));
+            indexes.get(attributes[k]).computeIfAbsent(keys[k], key -> new PostingList()).add(id);
+        }
+        records.add(v);
+        recordKeys.add(keys);
+        size++;
+        return id;
+    }
+
+    /**
+     * Remove a record and take it out of every index.
+     *
+     * @param id the record ID.
+     * @return true if the record was present.
+     */
+    public boolean remove(int id) {
+        if (get(id) == null)
+            return false;
+        //Use the values the record was indexed under, not its current ones.
+        Object[] keys = recordKeys.get(id);
+        for (int k = 0; k < attributes.length; k++) {
+            SeparateChainingHashMap<Object, PostingList> index = indexes.get(attributes[k]);
+            PostingList postings = index.get(keys[k]);
+            postings.remove(id);
+            //Drop values that no longer have any records.
+            if (postings.size() == 0)
+                index.remove(keys[k]);
+        }
+        records.set(id, null);
+        recordKeys.set(id, null);
+        size--;
+        return true;
+    }
+
+    /**
+     * Return the record with an ID.
+     *
+     * @param id the record ID.
+     * @return the volcano, or null if there is no such record.
+     */
+    public Volcano get(int id) {
+        return id >= 0 && id < records.size() ? records.get(id) : null;
+    }
+
+    /**
+     * Return the number of records stored.
+     *
+     * @return the number of records.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the IDs of the records whose attribute has a value, as a
+     * read-only view of the index's posting list. The view follows later
+     * inserts and removes only while the value has records: the list is
+     * dropped when its last record is removed, and a value with no
+     * records gets a shared empty list, so such a view stays empty. Look
+     * the value up again after changing the index.
+     *
+     * @param a     an indexed attribute.
+     * @param value the value to match, or null for records without one.
+     * @return the matching IDs, possibly empty.
+     * @throws IllegalArgumentException if a is not indexed.
+     */
+    public PostingList lookup(Attribute a, String value) {
+        SeparateChainingHashMap<Object, PostingList> index = indexes.get(a);
+        if (index == null)
+            throw new IllegalArgumentException("Attribute " + a + " is not indexed");
+        PostingList postings = index.get(key(value));
+        return postings == null ? EMPTY : PostingList.unmodifiable(postings);
+    }
+
+    /**
+     * Return the IDs present in every posting list, for example
+     * and(lookup(TYPE, "Stratovolcano"), lookup(COUNTRY, "Indonesia")).
+     *
+     * @param lists the posting lists to intersect.
+     * @return the intersection: a new list, or the only list given, or a
+     *         read-only empty list if none is given.
+     */
+    public PostingList and(PostingList... lists) {
+        //Intersect the shortest lists first so the result shrinks quickly.
+        PostingList[] sorted = lists.clone();
+        Arrays.sort(sorted, (x, y) -> Integer.compare(x.size(), y.size()));
+        PostingList result = sorted.length == 0 ? EMPTY : sorted[0];
+        for (int i = 1; i < sorted.length && result.size() > 0; i++)
+            result = PostingList.intersect(result, sorted[i]);
+        return result;
+    }
+
+    /**
+     * Return the IDs present in any posting list, for example
+     * or(lookup(STATUS, "Historical"), lookup(STATUS, "Holocene")).
+     *
+     * @param lists the posting lists to unite.
+     * @return the union: a new list, or the only list given, or a
+     *         read-only empty list if none is given.
+     */
+    public PostingList or(PostingList... lists) {
+        PostingList result = lists.length == 0 ? EMPTY : lists[0];
+        for (int i = 1; i < lists.length; i++)
+            result = PostingList.union(result, lists[i]);
+        return result;
+    }
+
+    /**
+     * Return the records for the IDs in a posting list.
+     *
+     * @param postings the IDs.
+     * @return the volcanoes in ID order.
+     */
+    public List<Volcano> records(PostingList postings) {
+        List<Volcano> result = new ArrayList<>(postings.size());
+        for (int i = 0; i < postings.size(); i++)
+            result.add(records.get(postings.get(i)));
+        return result;
+    }
+
+    /*
+    This method returns the map key of an attribute value. Null values share
+    a key of their own, which no string equals.
+     */
+    private static Object key(String value) {
+        return value == null ? NO_VALUE : value;
+    }
+
+    private static final PostingList EMPTY = PostingList.unmodifiable(new PostingList());
+    private static final Object NO_VALUE = new Object();
+
+    /**
+     * Records by ID. Removed records leave a null behind so IDs stay stable.
+     */
+    private final ArrayList<Volcano> records = new ArrayList<>();
+    /**
+     * The map key of each indexed attribute of each record, by ID, in the
+     * order of attributes, as they were at insert.
+     */
+    private final ArrayList<Object[]> recordKeys = new ArrayList<>();
+    private final Attribute[] attributes;
+    private final EnumMap<Attribute, SeparateChainingHashMap<Object, PostingList>> indexes =
+            new EnumMap<>(Attribute.class);
+    private int size;
+}
@@ -0,0 +1,306 @@
+/**********************************************************************
+ * @file VolcanoSnapshot.java
+ * @brief This program implements the VolcanoSnapshot class. It saves
+ * loaded Volcano records and the SeparateChainingHashTable built over
+ * them to a versioned, checksummed binary file, and maps such a file
+ * back in. Text columns are dictionary-encoded, latitude, longitude
+ * and elevation are stored as primitive columns, and the table's
+ * bucket layout is stored with each record's hash code, so a restart
+ * rebuilds the table without parsing CSV, hashing or rehashing.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// VolcanoSnapshot class
+//
+// CONSTRUCTION: through load( fileName )
+//
+// ******************PUBLIC OPERATIONS*********************
+// void save( fileName, records, table ) --> Write a snapshot file
+// VolcanoSnapshot load( fileName )      --> Map a snapshot file back in
+// ArrayList getRecords( )               --> The records in saved order
+// SeparateChainingHashTable getTable( ) --> The restored table
+//
+// ******************FILE LAYOUT (big-endian)**************
+// int magic, int version, int records n, int buckets m
+// int hash strategy (0 modulo prime, 1 mixed), long mixing seed
+// int dictionary size d, then d x (int byte length, UTF-8 bytes)
+// 8 x int[n] dictionary IDs of the text columns (-1 for null)
+// double[n] latitude, double[n] longitude, int[n] elevation
+// byte[n] null flags of the three numeric columns
+// int[n] stored hashes, int[m + 1] bucket starts, int[table size] record IDs
+// long CRC32 of every byte before it
+
+public class VolcanoSnapshot {
+    private VolcanoSnapshot(ArrayList<Volcano> records, SeparateChainingHashTable<Volcano> table) {
+        this.records = records;
+        this.table = table;
+    }
+
+    /**
+     * Write the records and the table built over them to a snapshot file.
+     * Every item in the table must be one of the records, and the table
+     * must use one of the built-in hash strategies.
+     *
+     * @param fileName the file to write.
+     * @param records  the records, in the order load() should return them.
+     * @param table    the table holding the records.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void save(String fileName, List<Volcano> records, SeparateChainingHashTable<Volcano> table)
+            throws IOException {
+        int n = records.size();
+        HashStrategy strategy = table.getStrategy();
+        if (!(strategy instanceof HashStrategy.ModPrime) && !(strategy instanceof HashStrategy.Mixed))
+            throw new IllegalArgumentException("Only built-in hash strategies can be saved: " + strategy);
+        //Give every distinct string an ID in order of first use.
+        StringDictionary dictionary = new StringDictionary();
+        int[][] columns = new int[TEXT_COLUMNS][n];
+        IdentityHashMap<Volcano, Integer> rowOf = new IdentityHashMap<>();
+        for (int r = 0; r < n; r++) {
+            Volcano v = records.get(r);
+            rowOf.put(v, r);
+            String[] text = {v.getRegion(), v.getNumber(), v.getName(), v.getCountry(), v.getLocation(),
+                    v.getType(), v.getStatus(), v.getLastKnownEruption()};
+            for (int c = 0; c < TEXT_COLUMNS; c++) {
+                if (text[c] == null) {
+                    columns[c][r] = -1;
+                    continue;
+                }
+                columns[c][r] = dictionary.code(text[c]);
+            }
+        }
+
+        //Record IDs grouped by bucket, with the hash each bucket cached.
+        int buckets = table.bucketCount();
+        int[] bucketStart = new int[buckets + 1];
+        int[] hashes = new int[n];
+        int[] bucketRows = new int[n];
+        int[] filled = new int[1];
+        for (int b = 0; b < buckets; b++) {
+            bucketStart[b] = filled[0];
+            table.forEachInBucket(b, (v, hash) -> {
+                Integer row = rowOf.get(v);
+                if (row == null || filled[0] == n)
+                    throw new IllegalArgumentException("The table holds a record that is not in the list: " + v);
+                hashes[row] = hash;
+                bucketRows[filled[0]++] = row;
+            });
+        }
+        bucketStart[buckets] = filled[0];
+
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(new FileOutputStream(fileName), crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(buckets);
+            if (strategy instanceof HashStrategy.Mixed) {
+                out.writeInt(STRATEGY_MIXED);
+                out.writeLong(((HashStrategy.Mixed) strategy).getSeed());
+            } else {
+                out.writeInt(STRATEGY_MOD_PRIME);
+                out.writeLong(0);
+            }
+            out.writeInt(dictionary.size());
+            for (int id = 0; id < dictionary.size(); id++) {
+                byte[] bytes = dictionary.get(id).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (int[] column : columns)
+                for (int id : column)
+                    out.writeInt(id);
+            for (Volcano v : records)
+                out.writeDouble(v.getLatitude() == null ? 0 : v.getLatitude());
+            for (Volcano v : records)
+                out.writeDouble(v.getLongitude() == null ? 0 : v.getLongitude());
+            for (Volcano v : records)
+                out.writeInt(v.getElevation() == null ? 0 : v.getElevation());
+            for (Volcano v : records)
+                out.writeByte((v.getLatitude() == null ? NULL_LATITUDE : 0)
+                        | (v.getLongitude() == null ? NULL_LONGITUDE : 0)
+                        | (v.getElevation() == null ? NULL_ELEVATION : 0));
+            for (int hash : hashes)
+                out.writeInt(hash);
+            for (int start : bucketStart)
+                out.writeInt(start);
+            for (int k = 0; k < filled[0]; k++)
+                out.writeInt(bucketRows[k]);
+            //The checksum covers everything written so far.
+            out.flush();
+            out.writeLong(crc.getValue());
+        }
+    }
+
+    /**
+     * Map a snapshot file and rebuild its records and table.
+     *
+     * @param fileName the snapshot file.
+     * @return the snapshot.
+     * @throws IOException if the file cannot be read, is not a snapshot of
+     *                     this version, or fails its checksum.
+     */
+    public static VolcanoSnapshot load(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Snapshot is too large to map: " + fileName);
+            if (size < HEADER_BYTES + Long.BYTES)
+                throw new IOException("Not a volcano snapshot: " + fileName);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buf.getInt(0) != MAGIC)
+                throw new IOException("Not a volcano snapshot: " + fileName);
+            if (buf.getInt(4) != VERSION)
+                throw new IOException("Unsupported snapshot version " + buf.getInt(4) + ": " + fileName);
+            int body = (int) size - Long.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buf.slice(0, body));
+            if (crc.getValue() != buf.getLong(body))
+                throw new IOException("Snapshot checksum mismatch: " + fileName);
+            try {
+                return decode(buf, body);
+            } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Corrupt snapshot: " + fileName, e);
+            }
+        }
+    }
+
+    /**
+     * Return the records in the order they were saved.
+     *
+     * @return the records.
+     */
+    public ArrayList<Volcano> getRecords() {
+        return records;
+    }
+
+    /**
+     * Return the table restored from the saved bucket layout.
+     *
+     * @return the table.
+     */
+    public SeparateChainingHashTable<Volcano> getTable() {
+        return table;
+    }
+
+    /*
+    This method reads the sections after the magic number and version. The
+    checksum has already been verified, so only the counts are checked.
+     */
+    private static VolcanoSnapshot decode(ByteBuffer buf, int body) {
+        int pos = 8;
+        int n = buf.getInt(pos);
+        int buckets = buf.getInt(pos + 4);
+        int strategyKind = buf.getInt(pos + 8);
+        long seed = buf.getLong(pos + 12);
+        int d = buf.getInt(pos + 20);
+        pos += 24;
+        if (n < 0 || buckets < 1 || d < 0)
+            throw new IllegalArgumentException("negative count");
+        HashStrategy strategy;
+        if (strategyKind == STRATEGY_MOD_PRIME)
+            strategy = HashStrategy.modPrime();
+        else if (strategyKind == STRATEGY_MIXED)
+            strategy = seed == 0 ? HashStrategy.mixPowerOfTwo() : HashStrategy.seeded(seed);
+        else
+            throw new IllegalArgumentException("unknown hash strategy " + strategyKind);
+
+        String[] dictionary = new String[d];
+        for (int i = 0; i < d; i++) {
+            int length = buf.getInt(pos);
+            byte[] bytes = new byte[length];
+            buf.get(pos + 4, bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            pos += 4 + length;
+        }
+
+        int[][] columns = new int[TEXT_COLUMNS][];
+        for (int c = 0; c < TEXT_COLUMNS; c++) {
+            columns[c] = ints(buf, pos, n);
+            pos += n * Integer.BYTES;
+        }
+        double[] lats = new double[n], lons = new double[n];
+        buf.slice(pos, n * Double.BYTES).asDoubleBuffer().get(lats);
+        pos += n * Double.BYTES;
+        buf.slice(pos, n * Double.BYTES).asDoubleBuffer().get(lons);
+        pos += n * Double.BYTES;
+        int[] elevations = ints(buf, pos, n);
+        pos += n * Integer.BYTES;
+        byte[] nulls = new byte[n];
+        buf.get(pos, nulls);
+        pos += n;
+        int[] hashes = ints(buf, pos, n);
+        pos += n * Integer.BYTES;
+        int[] bucketStart = ints(buf, pos, buckets + 1);
+        pos += (buckets + 1) * Integer.BYTES;
+        int tableSize = bucketStart[buckets];
+        if (tableSize < 0 || tableSize > n)
+            throw new IllegalArgumentException("bad table size");
+        int[] bucketRows = ints(buf, pos, tableSize);
+        pos += tableSize * Integer.BYTES;
+        if (pos != body)
+            throw new IllegalArgumentException("trailing bytes");
+
+        ArrayList<Volcano> records = new ArrayList<>(n);
+        for (int r = 0; r < n; r++) {
+            byte flags = nulls[r];
+            records.add(new Volcano(text(dictionary, columns[0][r]), text(dictionary, columns[1][r]),
+                    text(dictionary, columns[2][r]), text(dictionary, columns[3][r]),
+                    text(dictionary, columns[4][r]),
+                    (flags & NULL_LATITUDE) != 0 ? null : lats[r],
+                    (flags & NULL_LONGITUDE) != 0 ? null : lons[r],
+                    (flags & NULL_ELEVATION) != 0 ? null : elevations[r],
+                    text(dictionary, columns[5][r]), text(dictionary, columns[6][r]),
+                    text(dictionary, columns[7][r])));
+        }
+
+        Volcano[] items = new Volcano[tableSize];
+        int[] itemHashes = new int[tableSize];
+        for (int k = 0; k < tableSize; k++) {
+            items[k] = records.get(bucketRows[k]);
+            itemHashes[k] = hashes[bucketRows[k]];
+        }
+        return new VolcanoSnapshot(records, SeparateChainingHashTable.restore(bucketStart, items, itemHashes, strategy));
+    }
+
+    private static int[] ints(ByteBuffer buf, int pos, int count) {
+        int[] result = new int[count];
+        buf.slice(pos, count * Integer.BYTES).asIntBuffer().get(result);
+        return result;
+    }
+
+    private static String text(String[] dictionary, int id) {
+        return id < 0 ? null : dictionary[id];
+    }
+
+    private static final int MAGIC = 0x56534E50; //"VSNP"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final int STRATEGY_MOD_PRIME = 0;
+    private static final int STRATEGY_MIXED = 1;
+    private static final int TEXT_COLUMNS = 8;
+    private static final int NULL_LATITUDE = 1;
+    private static final int NULL_LONGITUDE = 2;
+    private static final int NULL_ELEVATION = 4;
+
+    private final ArrayList<Volcano> records;
+    private final SeparateChainingHashTable<Volcano> table;
+}
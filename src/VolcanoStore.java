@@ -0,0 +1,510 @@
+/**********************************************************************
+ * @file VolcanoStore.java
+ * @brief This program implements the VolcanoStore class. It keeps
+ * Volcano records column by column instead of as one object per row:
+ * latitude, longitude and elevation in primitive arrays, the six text
+ * fields that repeat a few dozen values as int codes into one shared
+ * string dictionary, and the volcano number and name, which are nearly
+ * all distinct, as plain String references. Rows are
+ * found by content through an open-addressing index of row IDs that
+ * compares the stored hash of each row before its fields. Callers that
+ * need a Volcano get a flyweight View that reads the columns of a row.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// VolcanoStore class
+//
+// CONSTRUCTION: an initial row capacity or default of 16
+//
+// ******************PUBLIC OPERATIONS*********************
+// int add( v )              --> Store v unless an equal row exists; return its row ID
+// int indexOf( v )          --> Row ID of a row equal to v, or -1
+// boolean contains( v )     --> Return true if a row equals v
+// int size( )               --> Number of rows
+// View get( row )           --> A flyweight Volcano reading one row
+// double latitude( row ) .. --> Primitive column reads
+// String region( row ) ..   --> Text column reads
+// long estimatedBytes( )    --> Approximate heap held by the columns
+
+public class VolcanoStore {
+    /**
+     * Construct an empty store.
+     */
+    public VolcanoStore() {
+        this(16);
+    }
+
+    /**
+     * Construct an empty store.
+     *
+     * @param capacity the number of rows to make room for.
+     */
+    public VolcanoStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        text = new int[TEXT_COLUMNS][capacity];
+        numbers = new String[capacity];
+        names = new String[capacity];
+        lats = new double[capacity];
+        lons = new double[capacity];
+        elevations = new int[capacity];
+        nulls = new byte[capacity];
+        hashes = new int[capacity];
+        slots = new int[indexSizeFor(capacity)];
+    }
+
+    /**
+     * Store a volcano as a new row, unless a row with equal fields is
+     * already stored.
+     *
+     * @param v the volcano to store.
+     * @return the row ID of the new or existing row.
+     */
+    public int add(Volcano v) {
+        int hash = v.hashCode();
+        int slot = find(v, hash);
+        if (slots[slot] != 0)
+            return slots[slot] - 1;
+
+        int row = size;
+        if (row == lats.length)
+            grow();
+        text[REGION][row] = code(v.getRegion());
+        numbers[row] = v.getNumber();
+        names[row] = v.getName();
+        text[COUNTRY][row] = code(v.getCountry());
+        text[LOCATION][row] = code(v.getLocation());
+        text[TYPE][row] = code(v.getType());
+        text[STATUS][row] = code(v.getStatus());
+        text[LAST_KNOWN_ERUPTION][row] = code(v.getLastKnownEruption());
+        Double lat = v.getLatitude(), lon = v.getLongitude();
+        Integer elevation = v.getElevation();
+        lats[row] = lat == null ? 0 : lat;
+        lons[row] = lon == null ? 0 : lon;
+        elevations[row] = elevation == null ? 0 : elevation;
+        nulls[row] = (byte) ((lat == null ? NULL_LATITUDE : 0) | (lon == null ? NULL_LONGITUDE : 0)
+                | (elevation == null ? NULL_ELEVATION : 0));
+        hashes[row] = hash;
+        size++;
+
+        //Keep the index at most half full.
+        if (size * 2 > slots.length) {
+            rebuildIndex(slots.length * 2);
+            slot = find(v, hash);
+        }
+        slots[slot] = row + 1;
+        return row;
+    }
+
+    /**
+     * Return the row that equals a volcano.
+     *
+     * @param v the volcano to search for.
+     * @return its row ID, or -1 if no row equals it.
+     */
+    public int indexOf(Volcano v) {
+        return slots[find(v, v.hashCode())] - 1;
+    }
+
+    /**
+     * Find a volcano in the store.
+     *
+     * @param v the volcano to search for.
+     * @return true if a row equals v.
+     */
+    public boolean contains(Volcano v) {
+        return indexOf(v) >= 0;
+    }
+
+    /**
+     * Return the number of rows.
+     *
+     * @return the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return a view of a row. Each call allocates the view plus the two
+     * Double objects the Volcano() constructor boxes for its default
+     * latitude and longitude; a scan can instead reuse one view and move
+     * it with View.moveTo().
+     *
+     * @param row the row ID.
+     * @return a read-only Volcano backed by the row.
+     */
+    public View get(int row) {
+        checkRow(row);
+        return new View(row);
+    }
+
+    //These are the column reads. Null numeric fields read as 0.
+    public double latitude(int row) {
+        checkRow(row);
+        return lats[row];
+    }
+
+    public double longitude(int row) {
+        checkRow(row);
+        return lons[row];
+    }
+
+    public int elevation(int row) {
+        checkRow(row);
+        return elevations[row];
+    }
+
+    public String region(int row) {
+        return string(REGION, row);
+    }
+
+    public String number(int row) {
+        checkRow(row);
+        return numbers[row];
+    }
+
+    public String name(int row) {
+        checkRow(row);
+        return names[row];
+    }
+
+    public String country(int row) {
+        return string(COUNTRY, row);
+    }
+
+    public String location(int row) {
+        return string(LOCATION, row);
+    }
+
+    public String type(int row) {
+        return string(TYPE, row);
+    }
+
+    public String status(int row) {
+        return string(STATUS, row);
+    }
+
+    public String lastKnownEruption(int row) {
+        return string(LAST_KNOWN_ERUPTION, row);
+    }
+
+    /**
+     * Return the approximate heap the store holds: every column array,
+     * the row index, the number and name strings, and the dictionary
+     * strings with their map entries. Object headers are counted as 12
+     * bytes, references as 4, objects are padded to 8 bytes, and text is
+     * taken to be one byte per character.
+     *
+     * @return the estimate in bytes.
+     */
+    public long estimatedBytes() {
+        long bytes = (long) lats.length * (TEXT_COLUMNS * 4 + 2 * 4 + 8 + 8 + 4 + 1 + 4) + (long) slots.length * 4;
+        for (int row = 0; row < size; row++)
+            bytes += stringBytes(numbers[row]) + stringBytes(names[row]);
+        for (int code = 0; code < strings.size(); code++)
+            //The String, a map node, a boxed code and two array slots.
+            bytes += stringBytes(strings.get(code)) + 32 + 16 + 4 + 4;
+        return bytes;
+    }
+
+    /**
+     * A read-only Volcano whose fields are the columns of one row of the
+     * store. It compares, hashes and prints like the volcano it was built
+     * from. Moving a view changes its hash code, so a view that has been
+     * put in a hash table must not be moved.
+     */
+    public final class View extends Volcano {
+        private int row;
+
+        private View(int row) {
+            this.row = row;
+        }
+
+        /**
+         * Point this view at another row.
+         *
+         * @param row the row ID.
+         * @return this view.
+         */
+        public View moveTo(int row) {
+            checkRow(row);
+            this.row = row;
+            return this;
+        }
+
+        /**
+         * Return the row this view reads.
+         *
+         * @return the row ID.
+         */
+        public int getRow() {
+            return row;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashes[row];
+        }
+
+        @Override
+        public Integer getElevation() {
+            return (nulls[row] & NULL_ELEVATION) != 0 ? null : elevations[row];
+        }
+
+        @Override
+        public Double getLatitude() {
+            return (nulls[row] & NULL_LATITUDE) != 0 ? null : lats[row];
+        }
+
+        @Override
+        public Double getLongitude() {
+            return (nulls[row] & NULL_LONGITUDE) != 0 ? null : lons[row];
+        }
+
+        @Override
+        public String getRegion() {
+            return string(REGION, row);
+        }
+
+        @Override
+        public String getNumber() {
+            checkRow(row);
+        return numbers[row];
+        }
+
+        @Override
+        public String getName() {
+            checkRow(row);
+        return names[row];
+        }
+
+        @Override
+        public String getCountry() {
+            return string(COUNTRY, row);
+        }
+
+        @Override
+        public String getLocation() {
+            return string(LOCATION, row);
+        }
+
+        @Override
+        public String getType() {
+            return string(TYPE, row);
+        }
+
+        @Override
+        public String getStatus() {
+            return string(STATUS, row);
+        }
+
+        @Override
+        public String getLastKnownEruption() {
+            return string(LAST_KNOWN_ERUPTION, row);
+        }
+
+        //A view is read-only; copy it with new Volcano(view) to change it.
+        @Override
+        public void setRegion(String region) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setNumber(String number) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setCountry(String country) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setLocation(String location) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setLatitude(Double latitude) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setLongitude(Double longitude) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setElevation(Integer elevation) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setType(String type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setStatus(String status) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setLastKnownEruption(String lastKnownEruption) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /*
+    This method returns the index slot holding the row equal to v, or the empty
+    slot where it would go.
+     */
+    private int find(Volcano v, int hash) {
+        int mask = slots.length - 1;
+        for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+            int entry = slots[i];
+            if (entry == 0 || (hashes[entry - 1] == hash && rowEquals(entry - 1, v)))
+                return i;
+        }
+    }
+
+    /*
+    This method returns true if the row has the same fields as v. Numbers are
+    compared the way Double.equals and Integer.equals compare them.
+     */
+    private boolean rowEquals(int row, Volcano v) {
+        Double lat = v.getLatitude(), lon = v.getLongitude();
+        Integer elevation = v.getElevation();
+        byte flags = nulls[row];
+        if ((lat == null) != ((flags & NULL_LATITUDE) != 0) || (lon == null) != ((flags & NULL_LONGITUDE) != 0)
+                || (elevation == null) != ((flags & NULL_ELEVATION) != 0))
+            return false;
+        if (lat != null && Double.doubleToLongBits(lat) != Double.doubleToLongBits(lats[row]))
+            return false;
+        if (lon != null && Double.doubleToLongBits(lon) != Double.doubleToLongBits(lons[row]))
+            return false;
+        if (elevation != null && elevation != elevations[row])
+            return false;
+        return Objects.equals(numbers[row], v.getNumber()) && Objects.equals(names[row], v.getName())
+                && sameText(REGION, row, v.getRegion()) && sameText(COUNTRY, row, v.getCountry())
+                && sameText(LOCATION, row, v.getLocation()) && sameText(TYPE, row, v.getType())
+                && sameText(STATUS, row, v.getStatus()) && sameText(LAST_KNOWN_ERUPTION, row, v.getLastKnownEruption());
+    }
+
+    private boolean sameText(int column, int row, String s) {
+        int code = text[column][row];
+        return code < 0 ? s == null : strings.get(code).equals(s);
+    }
+
+    /*
+    This method returns the dictionary code of s, adding s if it is new.
+     */
+    private int code(String s) {
+        return s == null ? -1 : strings.code(s);
+    }
+
+    private String string(int column, int row) {
+        checkRow(row);
+        int code = text[column][row];
+        return code < 0 ? null : strings.get(code);
+    }
+
+    /*
+    This method returns the heap of a String and its byte array.
+     */
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 24 + ((16 + s.length() + 7) & ~7);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+
+    /*
+    This method doubles every column.
+     */
+    private void grow() {
+        int capacity = lats.length * 2;
+        for (int c = 0; c < TEXT_COLUMNS; c++)
+            text[c] = Arrays.copyOf(text[c], capacity);
+        numbers = Arrays.copyOf(numbers, capacity);
+        names = Arrays.copyOf(names, capacity);
+        lats = Arrays.copyOf(lats, capacity);
+        lons = Arrays.copyOf(lons, capacity);
+        elevations = Arrays.copyOf(elevations, capacity);
+        nulls = Arrays.copyOf(nulls, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+    }
+
+    /*
+    This method rebuilds the index at a new power-of-two size from the stored
+    hashes, without reading any other column.
+     */
+    private void rebuildIndex(int newSize) {
+        slots = new int[newSize];
+        int mask = newSize - 1;
+        for (int row = 0; row < size; row++) {
+            int i = mix(hashes[row]) & mask;
+            while (slots[i] != 0)
+                i = (i + 1) & mask;
+            slots[i] = row + 1;
+        }
+    }
+
+    private static int indexSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+    }
+
+    /*
+    This method spreads a hash code so that its low bits depend on all of it.
+     */
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final int TEXT_COLUMNS = 6;
+    private static final int REGION = 0;
+    private static final int COUNTRY = 1;
+    private static final int LOCATION = 2;
+    private static final int TYPE = 3;
+    private static final int STATUS = 4;
+    private static final int LAST_KNOWN_ERUPTION = 5;
+    private static final int NULL_LATITUDE = 1;
+    private static final int NULL_LONGITUDE = 2;
+    private static final int NULL_ELEVATION = 4;
+
+    /**
+     * text[c][row] is the dictionary code of text column c, or -1 for null.
+     */
+    private int[][] text;
+    private String[] numbers;
+    private String[] names;
+    private double[] lats;
+    private double[] lons;
+    private int[] elevations;
+    private byte[] nulls;
+
+    /**
+     * The hashCode() of each row, compared before its fields.
+     */
+    private int[] hashes;
+
+    /**
+     * Open-addressing index of row IDs plus one; 0 marks an empty slot.
+     */
+    private int[] slots;
+    private int size;
+
+    private final StringDictionary strings = new StringDictionary();
+}
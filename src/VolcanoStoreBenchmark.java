@@ -0,0 +1,175 @@
+/**********************************************************************
+ * @file VolcanoStoreBenchmark.java
+ * @brief This program compares a VolcanoStore with the usual
+ * ArrayList of Volcano objects on a dataset made by repeating the
+ * volcano CSV under new volcano numbers. It reports the heap each one
+ * retains per record, and the heap of the objects when their repeating
+ * text fields are interned through a StringDictionary, and the throughput of a numeric scan (the mean
+ * elevation north of the equator) and a text scan (records in Japan).
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class VolcanoStoreBenchmark {
+    // Usage: java VolcanoStoreBenchmark <input file> [records]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java VolcanoStoreBenchmark <input file> [records]");
+            System.exit(1);
+        }
+        int records = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        ArrayList<Volcano> base = MappedCsvLoader.load(args[0], Integer.MAX_VALUE);
+
+        //Measure each layout on its own so neither is charged for the other.
+        long heapBefore = usedHeap();
+        ArrayList<Volcano> objects = replicate(base, records, null);
+        long objectBytes = usedHeap() - heapBefore;
+
+        objects = null;
+        heapBefore = usedHeap();
+        objects = replicate(base, records, new StringDictionary());
+        long internedBytes = usedHeap() - heapBefore;
+
+        objects = null;
+        heapBefore = usedHeap();
+        VolcanoStore store = buildStore(base, records);
+        long storeBytes = usedHeap() - heapBefore;
+
+        System.out.println("Records=" + store.size()
+                + ", Object Bytes/record=" + objectBytes / store.size()
+                + ", Interned Object Bytes/record=" + internedBytes / store.size()
+                + ", Store Bytes/record=" + storeBytes / store.size()
+                + ", Store Estimate Bytes/record=" + store.estimatedBytes() / store.size());
+
+        objects = replicate(base, records, null);
+        for (int pass = 0; pass < WARMUP; pass++) {
+            sink += scanObjects(objects) + scanStore(store);
+            sink += countObjects(objects) + countStore(store);
+        }
+        long start = System.nanoTime();
+        for (int pass = 0; pass < PASSES; pass++)
+            sink += scanObjects(objects);
+        long timeObjects = System.nanoTime();
+        for (int pass = 0; pass < PASSES; pass++)
+            sink += scanStore(store);
+        long timeStore = System.nanoTime();
+        for (int pass = 0; pass < PASSES; pass++)
+            sink += countObjects(objects);
+        long timeObjectsText = System.nanoTime();
+        for (int pass = 0; pass < PASSES; pass++)
+            sink += countStore(store);
+        long timeStoreText = System.nanoTime();
+
+        long rows = (long) PASSES * store.size() * 1000000000L;
+        System.out.println("Elevation scan: Objects rows/sec=" + rows / (timeObjects - start)
+                + ", Store rows/sec=" + rows / (timeStore - timeObjects));
+        System.out.println("Country scan: Objects rows/sec=" + rows / (timeObjectsText - timeStore)
+                + ", Store rows/sec=" + rows / (timeStoreText - timeObjectsText));
+
+        //Check that the view reads back what was stored.
+        VolcanoStore.View view = store.get(0);
+        for (int row = 0; row < store.size(); row += 9973)
+            if (!view.moveTo(row).equals(objects.get(row)) || store.indexOf(objects.get(row)) != row)
+                System.out.println("Mismatch at row " + row);
+    }
+
+    // Fills a store from a replicated list that is dropped on return.
+    private static VolcanoStore buildStore(ArrayList<Volcano> base, int records) {
+        VolcanoStore store = new VolcanoStore(records);
+        for (Volcano v : replicate(base, records, null))
+            store.add(v);
+        return store;
+    }
+
+    // Mean elevation of the records north of the equator, from the objects.
+    private static double scanObjects(ArrayList<Volcano> objects) {
+        long sum = 0;
+        int n = 0;
+        for (Volcano v : objects) {
+            if (v.getLatitude() > 0) {
+                sum += v.getElevation();
+                n++;
+            }
+        }
+        return (double) sum / Math.max(1, n);
+    }
+
+    // The same scan over the primitive columns.
+    private static double scanStore(VolcanoStore store) {
+        long sum = 0;
+        int n = 0;
+        for (int row = 0, size = store.size(); row < size; row++) {
+            if (store.latitude(row) > 0) {
+                sum += store.elevation(row);
+                n++;
+            }
+        }
+        return (double) sum / Math.max(1, n);
+    }
+
+    private static int countObjects(ArrayList<Volcano> objects) {
+        int n = 0;
+        for (Volcano v : objects)
+            if (COUNTRY.equals(v.getCountry()))
+                n++;
+        return n;
+    }
+
+    // Every row shares the dictionary's String, so equals() stops at the
+    // identity check for the matching rows.
+    private static int countStore(VolcanoStore store) {
+        int n = 0;
+        for (int row = 0, size = store.size(); row < size; row++)
+            if (COUNTRY.equals(store.country(row)))
+                n++;
+        return n;
+    }
+
+    // Returns n volcanoes made from copies of the base records. Every copy has
+    // its own strings and boxed numbers, as if it had been parsed from a file,
+    // and its own volcano number, so every record is distinct. With a
+    // dictionary, the repeating text fields are interned as a loader would.
+    private static ArrayList<Volcano> replicate(ArrayList<Volcano> base, int n, StringDictionary dictionary) {
+        ArrayList<Volcano> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Volcano v = base.get(i % base.size());
+            result.add(new Volcano(text(v.getRegion(), dictionary), v.getNumber() + "-" + i / base.size(),
+                    copy(v.getName()), text(v.getCountry(), dictionary), text(v.getLocation(), dictionary),
+                    Double.valueOf(v.getLatitude()), Double.valueOf(v.getLongitude()), Integer.valueOf(v.getElevation()),
+                    text(v.getType(), dictionary), text(v.getStatus(), dictionary),
+                    text(v.getLastKnownEruption(), dictionary)));
+        }
+        return result;
+    }
+
+    // Returns a new copy of s, or the dictionary's instance if there is one.
+    private static String text(String s, StringDictionary dictionary) {
+        return dictionary == null ? copy(s) : dictionary.intern(copy(s));
+    }
+
+    // Returns a copy of s with its own byte array; new String(s) would share
+    // the array of s, which a parsed record never does.
+    private static String copy(String s) {
+        return new String(s.toCharArray());
+    }
+
+    // Returns the heap in use after asking for a collection.
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static final String COUNTRY = "Japan";
+    private static final int WARMUP = 5;
+    private static final int PASSES = 20;
+
+    /**
+     * Results are added here so the JIT cannot drop the scans.
+     */
+    private static volatile double sink;
+}
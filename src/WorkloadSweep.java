@@ -0,0 +1,224 @@
+/**********************************************************************
+ * @file WorkloadSweep.java
+ * @brief This program sweeps SeparateChainingHashTable over synthetic
+ * volcano datasets in one JVM. For each dataset size it generates the
+ * records with VolcanoGenerator, then for each input order (sorted,
+ * shuffled, reversed) and operation (insert, contains, remove) it runs
+ * warmup rounds followed by measured rounds. Every operation is timed
+ * on its own, and the results give the p50, p99 and p99.9 latency of
+ * the measured operations. Results are written as CSV or JSON, one row
+ * or object per combination, to a file or to standard output.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+public class WorkloadSweep {
+    // Usage: java WorkloadSweep <input file> [-sizes 100000,1000000] [-orders SORTED,SHUFFLED,REVERSED]
+    //        [-ops INSERT,CONTAINS,REMOVE] [-skew 0.99] [-dup 0.1] [-wi warmup rounds]
+    //        [-i measured rounds] [-seed 42] [-format csv|json] [-out file]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java WorkloadSweep <input file> [-sizes 100000,1000000]"
+                    + " [-orders SORTED,SHUFFLED,REVERSED] [-ops INSERT,CONTAINS,REMOVE] [-skew 0.99] [-dup 0.1]"
+                    + " [-wi warmup rounds] [-i measured rounds] [-seed 42] [-format csv|json] [-out file]");
+            System.exit(1);
+        }
+
+        String sizes = "100000,1000000";
+        String orders = "SORTED,SHUFFLED,REVERSED";
+        String ops = "INSERT,CONTAINS,REMOVE";
+        double skew = VolcanoGenerator.DEFAULT_SKEW, duplicateRate = 0.1;
+        int warmups = 2, rounds = 3;
+        long seed = VolcanoGenerator.DEFAULT_SEED;
+        String format = "csv", out = null;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-sizes": sizes = args[i + 1]; break;
+                case "-orders": orders = args[i + 1]; break;
+                case "-ops": ops = args[i + 1]; break;
+                case "-skew": skew = Double.parseDouble(args[i + 1]); break;
+                case "-dup": duplicateRate = Double.parseDouble(args[i + 1]); break;
+                case "-wi": warmups = Integer.parseInt(args[i + 1]); break;
+                case "-i": rounds = Integer.parseInt(args[i + 1]); break;
+                case "-seed": seed = Long.parseLong(args[i + 1]); break;
+                case "-format": format = args[i + 1]; break;
+                case "-out": out = args[i + 1]; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (!format.equals("csv") && !format.equals("json"))
+            throw new IllegalArgumentException("Unknown format " + format);
+
+        VolcanoGenerator generator = new VolcanoGenerator(MappedCsvLoader.load(args[0], Integer.MAX_VALUE),
+                skew, duplicateRate, seed);
+        List<Result> results = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            Volcano[] data = generator.generate(Integer.parseInt(size)).toArray(new Volcano[0]);
+            for (String order : orders.split(",")) {
+                Volcano[] items = arrange(data, HashTableBenchmark.Order.valueOf(order), seed);
+                for (String op : ops.split(",")) {
+                    Result r = run(items, HashTableBenchmark.Operation.valueOf(op), warmups, rounds);
+                    r.order = order;
+                    r.skew = skew;
+                    r.duplicateRate = duplicateRate;
+                    results.add(r);
+                    //Progress goes to standard error so standard output stays parseable.
+                    System.err.println(r.summary());
+                }
+            }
+        }
+
+        try (PrintStream stream = out == null ? null : new PrintStream(out, "UTF-8")) {
+            PrintStream target = stream == null ? System.out : stream;
+            if (format.equals("csv"))
+                writeCsv(target, results);
+            else
+                writeJson(target, results);
+        }
+    }
+
+    /**
+     * The measurements of one size, order and operation. Latencies are
+     * in nanoseconds.
+     */
+    static final class Result {
+        int size;
+        String order;
+        String operation;
+        double skew;
+        double duplicateRate;
+        long operations;
+        double meanNanos;
+        long p50Nanos, p99Nanos, p999Nanos, maxNanos;
+        double opsPerSecond;
+
+        String summary() {
+            return String.format(Locale.ROOT, "%-9s %8d %9s: mean=%.1f ns, p50=%d ns, p99=%d ns, p99.9=%d ns, max=%d ns",
+                    operation, size, order, meanNanos, p50Nanos, p99Nanos, p999Nanos, maxNanos);
+        }
+    }
+
+    /*
+    This method returns a copy of data in the given order.
+     */
+    private static Volcano[] arrange(Volcano[] data, HashTableBenchmark.Order order, long seed) {
+        Volcano[] items = data.clone();
+        if (order == HashTableBenchmark.Order.SHUFFLED) {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int i = items.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Volcano t = items[i];
+                items[i] = items[j];
+                items[j] = t;
+            }
+            return items;
+        }
+        Arrays.sort(items);
+        if (order == HashTableBenchmark.Order.REVERSED)
+            for (int i = 0, j = items.length - 1; i < j; i++, j--) {
+                Volcano t = items[i];
+                items[i] = items[j];
+                items[j] = t;
+            }
+        return items;
+    }
+
+    /*
+    This method runs the warmup rounds, then times every operation of the
+    measured rounds. Each round starts from a new default-size table, so
+    inserts pay for their rehashes as they do in Proj4. The table a
+    contains or remove round needs is built before the clock starts.
+     */
+    private static Result run(Volcano[] items, HashTableBenchmark.Operation op, int warmups, int rounds) {
+        int n = items.length;
+        long[] latency = new long[n * rounds];
+        long total = 0;
+        for (int round = 0; round < warmups + rounds; round++) {
+            SeparateChainingHashTable<Volcano> table = new SeparateChainingHashTable<>();
+            if (op != HashTableBenchmark.Operation.INSERT)
+                table.insertAll(items);
+            //Collect now so the garbage of the last round is not timed.
+            System.gc();
+            int offset = round < warmups ? -1 : (round - warmups) * n;
+            long roundStart = System.nanoTime(), last = roundStart;
+            for (int k = 0; k < n; k++) {
+                switch (op) {
+                    case INSERT:
+                        table.insert(items[k]);
+                        break;
+                    case CONTAINS:
+                        if (table.contains(items[k]))
+                            sink++;
+                        break;
+                    default:
+                        table.remove(items[k]);
+                }
+                //Each timestamp ends one operation and starts the next.
+                long now = System.nanoTime();
+                if (offset >= 0)
+                    latency[offset + k] = now - last;
+                last = now;
+            }
+            if (offset >= 0)
+                total += last - roundStart;
+        }
+
+        Arrays.sort(latency);
+        Result r = new Result();
+        r.size = n;
+        r.operation = op.name();
+        r.operations = latency.length;
+        r.meanNanos = (double) total / Math.max(1, latency.length);
+        r.p50Nanos = percentile(latency, 0.5);
+        r.p99Nanos = percentile(latency, 0.99);
+        r.p999Nanos = percentile(latency, 0.999);
+        r.maxNanos = latency.length == 0 ? 0 : latency[latency.length - 1];
+        r.opsPerSecond = total == 0 ? 0 : latency.length * 1e9 / total;
+        return r;
+    }
+
+    /*
+    This method returns the nearest-rank percentile q of sorted values.
+     */
+    private static long percentile(long[] sorted, double q) {
+        if (sorted.length == 0)
+            return 0;
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static void writeCsv(PrintStream out, List<Result> results) {
+        out.println("size,order,operation,skew,duplicate_rate,operations,mean_ns,p50_ns,p99_ns,p999_ns,max_ns,ops_per_sec");
+        for (Result r : results)
+            out.println(String.format(Locale.ROOT, "%d,%s,%s,%s,%s,%d,%.1f,%d,%d,%d,%d,%.0f",
+                    r.size, r.order, r.operation, r.skew, r.duplicateRate, r.operations, r.meanNanos,
+                    r.p50Nanos, r.p99Nanos, r.p999Nanos, r.maxNanos, r.opsPerSecond));
+    }
+
+    private static void writeJson(PrintStream out, List<Result> results) {
+        out.println("[");
+        for (int i = 0; i < results.size(); i++) {
+            Result r = results.get(i);
+            out.print(String.format(Locale.ROOT, "  {\"size\": %d, \"order\": \"%s\", \"operation\": \"%s\", "
+                            + "\"skew\": %s, \"duplicateRate\": %s, \"operations\": %d, \"meanNs\": %.1f, "
+                            + "\"p50Ns\": %d, \"p99Ns\": %d, \"p999Ns\": %d, \"maxNs\": %d, \"opsPerSec\": %.0f}",
+                    r.size, r.order, r.operation, r.skew, r.duplicateRate, r.operations, r.meanNanos,
+                    r.p50Nanos, r.p99Nanos, r.p999Nanos, r.maxNanos, r.opsPerSecond));
+            out.println(i + 1 < results.size() ? "," : "");
+        }
+        out.println("]");
+    }
+
+    /**
+     * Results are added here so the JIT cannot drop the lookups.
+     */
+    private static volatile long sink;
+}
@@ -0,0 +1,124 @@
+/**********************************************************************
+ * @file ZipfDistribution.java
+ * @brief This program implements the ZipfDistribution class. It draws
+ * ranks from 0 to n - 1 where rank k is chosen with probability
+ * proportional to 1 / (k + 1)^exponent, so a few ranks take most of
+ * the draws. Samples come from rejection-inversion (Hormann and
+ * Derflinger), which costs O(1) per draw and no table, so n can be in
+ * the millions. An exponent of 0 is the uniform distribution.
+ * @author Wynne Greene
+ * @date: December 5, 2024
+ ***********************************************************************/
+
+import java.util.SplittableRandom;
+
+// ZipfDistribution class
+//
+// CONSTRUCTION: the number of ranks, the exponent and a random seed
+//
+// ******************PUBLIC OPERATIONS*********************
+// int sample( )          --> A rank in [0, n), small ranks most often
+// int getNumberOfRanks( ) --> n
+// double getExponent( )  --> The skew; 0 is uniform
+
+public class ZipfDistribution {
+    /**
+     * Construct the distribution.
+     *
+     * @param n        the number of ranks (must be positive).
+     * @param exponent the skew (must not be negative).
+     * @param seed     the seed of the random numbers.
+     */
+    public ZipfDistribution(int n, double exponent, long seed) {
+        if (n < 1)
+            throw new IllegalArgumentException("Number of ranks must be positive: " + n);
+        if (!(exponent >= 0) || Double.isInfinite(exponent))
+            throw new IllegalArgumentException("Exponent must not be negative: " + exponent);
+        this.n = n;
+        this.exponent = exponent;
+        random = new SplittableRandom(seed);
+        hIntegralX1 = hIntegral(1.5) - 1.0;
+        hIntegralN = hIntegral(n + 0.5);
+        s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Draw a rank.
+     *
+     * @return a rank in [0, n); rank 0 is the most likely.
+     */
+    public int sample() {
+        if (exponent == 0)
+            return random.nextInt(n);
+        while (true) {
+            //Invert the integral of the hat function at a uniform point,
+            //then accept the nearest integer or try again.
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1)
+                k = 1;
+            else if (k > n)
+                k = n;
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k))
+                return k - 1;
+        }
+    }
+
+    /**
+     * Return the number of ranks.
+     *
+     * @return n.
+     */
+    public int getNumberOfRanks() {
+        return n;
+    }
+
+    /**
+     * Return the exponent.
+     *
+     * @return the skew.
+     */
+    public double getExponent() {
+        return exponent;
+    }
+
+    /*
+    These methods are the hat function h(x) = x^-exponent, its integral and
+    the inverse of the integral, written to stay accurate near exponent 1.
+     */
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1)
+            t = -1;
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    private static double log1pOverX(double x) {
+        if (Math.abs(x) > 1e-8)
+            return Math.log1p(x) / x;
+        return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    private static double expm1OverX(double x) {
+        if (Math.abs(x) > 1e-8)
+            return Math.expm1(x) / x;
+        return 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+    }
+
+    private final int n;
+    private final double exponent;
+    private final SplittableRandom random;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+}